@@ -0,0 +1,89 @@
+package com.smartsplitpro.bench;
+
+import com.smartsplitpro.service.BalanceTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance aggregation over a synthetic transaction list: the legacy
+ * separate-chaining {@code SimpleHashMap<String, BigDecimal>} against the
+ * interned, primitive {@link BalanceTable}.
+ *
+ * Run with: {@code mvn -Pjmh compile exec:exec -Djmh.args="BalanceTableBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BalanceTableBenchmark {
+
+    @Param({"100", "10000"})
+    int users;
+
+    @Param({"100000"})
+    int transactions;
+
+    String[] payers;
+    String[] payees;
+    BigDecimal[] amounts;
+    long[] cents;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        payers = new String[transactions];
+        payees = new String[transactions];
+        amounts = new BigDecimal[transactions];
+        cents = new long[transactions];
+        for (int i = 0; i < transactions; i++) {
+            // fresh String instances per row, as hydrated entities would have
+            payers[i] = new String("user" + random.nextInt(users));
+            payees[i] = new String("user" + random.nextInt(users));
+            long c = 1 + random.nextInt(100_000);
+            cents[i] = c;
+            amounts[i] = BigDecimal.valueOf(c, 2);
+        }
+    }
+
+    @Benchmark
+    public LegacySimpleHashMap<String, BigDecimal> legacySimpleHashMap() {
+        LegacySimpleHashMap<String, BigDecimal> map = new LegacySimpleHashMap<>();
+        for (int i = 0; i < transactions; i++) {
+            BigDecimal amt = amounts[i];
+            BigDecimal payerBalance = map.get(payers[i]);
+            if (payerBalance == null) payerBalance = BigDecimal.ZERO;
+            map.put(payers[i], payerBalance.add(amt));
+
+            BigDecimal payeeBalance = map.get(payees[i]);
+            if (payeeBalance == null) payeeBalance = BigDecimal.ZERO;
+            map.put(payees[i], payeeBalance.subtract(amt));
+        }
+        return map;
+    }
+
+    @Benchmark
+    public BalanceTable balanceTable() {
+        BalanceTable table = new BalanceTable();
+        for (int i = 0; i < transactions; i++) {
+            long c = cents[i];
+            table.add(payers[i], c, 1);
+            table.add(payees[i], -c, 1);
+        }
+        return table;
+    }
+}
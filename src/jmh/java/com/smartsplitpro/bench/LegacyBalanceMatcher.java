@@ -0,0 +1,143 @@
+package com.smartsplitpro.bench;
+
+import com.smartsplitpro.model.Balance;
+import com.smartsplitpro.model.Settlement;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Baseline for {@code SettlementBenchmark}: the {@code BigDecimal} greedy
+ * matcher with the hand-written quick sorts
+ * ({@code quickSortBalancesDescending} / {@code Ascending}) that
+ * {@code TransactionService} used before the cents engine (the same
+ * reference {@code CentsSettlementEngineTest} checks against). Copied
+ * verbatim; it mutates the balances it is given.
+ */
+class LegacyBalanceMatcher {
+
+    List<Settlement> match(List<Balance> balances) {
+        // MANUAL IMPLEMENTATION: Separate positives and negatives
+        List<Balance> positives = new ArrayList<>();
+        List<Balance> negatives = new ArrayList<>();
+        
+        for (Balance b : balances) {
+            if (b.getBalance().compareTo(BigDecimal.ZERO) > 0) {
+                positives.add(b);
+            } else if (b.getBalance().compareTo(BigDecimal.ZERO) < 0) {
+                negatives.add(b);
+            }
+        }
+        
+        // MANUAL QUICK SORT: Sort positives in descending order, negatives ascending (most negative first)
+        quickSortBalancesDescending(positives, 0, positives.size() - 1);
+        quickSortBalancesAscending(negatives, 0, negatives.size() - 1);
+
+        List<Settlement> edges = new ArrayList<>();
+
+        int i = 0, j = 0;
+        while (i < positives.size() && j < negatives.size()) {
+            Balance pos = positives.get(i);
+            Balance neg = negatives.get(j);
+            BigDecimal owe = pos.getBalance().min(neg.getBalance().abs());
+
+            // neg owes owe to pos
+            edges.add(new Settlement(neg.getUsername(), pos.getUsername(), owe));
+
+            pos.setBalance(pos.getBalance().subtract(owe));
+            neg.setBalance(neg.getBalance().add(owe));
+
+            if (pos.getBalance().compareTo(BigDecimal.ZERO) == 0) i++;
+            if (neg.getBalance().compareTo(BigDecimal.ZERO) == 0) j++;
+        }
+
+        return edges;
+    }
+
+    /**
+     * Manual Quick Sort implementation for sorting balances in DESCENDING order
+     * (Largest balance first - for creditors)
+     * 
+     * Algorithm: Quick Sort
+     * Time Complexity: O(n log n) average, O(n²) worst case
+     * Space Complexity: O(log n) for recursion stack
+     */
+    private void quickSortBalancesDescending(List<Balance> list, int low, int high) {
+        if (low < high) {
+            // Partition and get pivot index
+            int pivotIndex = partitionDescending(list, low, high);
+            
+            // Recursively sort elements before and after partition
+            quickSortBalancesDescending(list, low, pivotIndex - 1);
+            quickSortBalancesDescending(list, pivotIndex + 1, high);
+        }
+    }
+    
+    private int partitionDescending(List<Balance> list, int low, int high) {
+        // Choose last element as pivot
+        BigDecimal pivot = list.get(high).getBalance();
+        int i = low - 1; // Index of smaller element
+        
+        for (int j = low; j < high; j++) {
+            // For descending order: if current element is GREATER than pivot
+            if (list.get(j).getBalance().compareTo(pivot) > 0) {
+                i++;
+                // Swap elements
+                Balance temp = list.get(i);
+                list.set(i, list.get(j));
+                list.set(j, temp);
+            }
+        }
+        
+        // Swap pivot to correct position
+        Balance temp = list.get(i + 1);
+        list.set(i + 1, list.get(high));
+        list.set(high, temp);
+        
+        return i + 1;
+    }
+    
+    /**
+     * Manual Quick Sort implementation for sorting balances in ASCENDING order
+     * (Most negative first - for debtors)
+     * 
+     * Algorithm: Quick Sort
+     * Time Complexity: O(n log n) average, O(n²) worst case
+     * Space Complexity: O(log n) for recursion stack
+     */
+    private void quickSortBalancesAscending(List<Balance> list, int low, int high) {
+        if (low < high) {
+            // Partition and get pivot index
+            int pivotIndex = partitionAscending(list, low, high);
+            
+            // Recursively sort elements before and after partition
+            quickSortBalancesAscending(list, low, pivotIndex - 1);
+            quickSortBalancesAscending(list, pivotIndex + 1, high);
+        }
+    }
+    
+    private int partitionAscending(List<Balance> list, int low, int high) {
+        // Choose last element as pivot
+        BigDecimal pivot = list.get(high).getBalance();
+        int i = low - 1; // Index of smaller element
+        
+        for (int j = low; j < high; j++) {
+            // For ascending order: if current element is LESS than pivot
+            if (list.get(j).getBalance().compareTo(pivot) < 0) {
+                i++;
+                // Swap elements
+                Balance temp = list.get(i);
+                list.set(i, list.get(j));
+                list.set(j, temp);
+            }
+        }
+        
+        // Swap pivot to correct position
+        Balance temp = list.get(i + 1);
+        list.set(i + 1, list.get(high));
+        list.set(high, temp);
+        
+        return i + 1;
+    }
+}
@@ -0,0 +1,182 @@
+package com.smartsplitpro.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Baseline for {@code BalanceTableBenchmark}: the separate-chaining map that
+ * {@code TransactionService} used for balance aggregation before the ledger
+ * moved to {@link com.smartsplitpro.service.BalanceTable}. Kept verbatim.
+ *
+ * Algorithm: Hash Table with Linked List for collisions
+ * - Hash Function: Custom implementation based on string characters
+ * - Collision Resolution: Separate Chaining (each bucket has a linked list)
+ * - Time Complexity: O(1) average for put/get, O(n) worst case
+ * - Space Complexity: O(n) where n is number of entries
+ */
+class LegacySimpleHashMap<K, V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    
+    private Entry<K, V>[] buckets;
+    private int size;
+    
+    @SuppressWarnings("unchecked")
+    public LegacySimpleHashMap() {
+        buckets = new Entry[DEFAULT_CAPACITY];
+        size = 0;
+    }
+    
+    /**
+     * Custom hash function - converts key to integer index
+     * Algorithm: Polynomial rolling hash
+     */
+    private int hash(K key) {
+        if (key == null) return 0;
+        
+        String keyStr = key.toString();
+        int hash = 0;
+        
+        // Polynomial hash: hash = (hash * 31 + char) for each character
+        for (int i = 0; i < keyStr.length(); i++) {
+            hash = hash * 31 + keyStr.charAt(i);
+        }
+        
+        // Make positive and fit within bucket size
+        hash = Math.abs(hash);
+        return hash % buckets.length;
+    }
+    
+    /**
+     * Put key-value pair into map
+     * Time Complexity: O(1) average, O(n) worst case with many collisions
+     */
+    public void put(K key, V value) {
+        if (key == null) return;
+        
+        // Check if we need to resize
+        if ((float) size / buckets.length >= LOAD_FACTOR) {
+            resize();
+        }
+        
+        int index = hash(key);
+        Entry<K, V> head = buckets[index];
+        
+        // Search for existing key in the chain
+        Entry<K, V> current = head;
+        while (current != null) {
+            if (current.key.equals(key)) {
+                // Key exists, update value
+                current.value = value;
+                return;
+            }
+            current = current.next;
+        }
+        
+        // Key doesn't exist, add new entry at the head of chain
+        Entry<K, V> newEntry = new Entry<>(key, value);
+        newEntry.next = head;
+        buckets[index] = newEntry;
+        size++;
+    }
+    
+    /**
+     * Get value for given key
+     * Time Complexity: O(1) average, O(n) worst case
+     */
+    public V get(K key) {
+        if (key == null) return null;
+        
+        int index = hash(key);
+        Entry<K, V> current = buckets[index];
+        
+        // Linear search through chain
+        while (current != null) {
+            if (current.key.equals(key)) {
+                return current.value;
+            }
+            current = current.next;
+        }
+        
+        return null; // Key not found
+    }
+    
+    /**
+     * Get all keys in the map
+     */
+    public List<K> keys() {
+        List<K> keyList = new ArrayList<>();
+        
+        for (Entry<K, V> bucket : buckets) {
+            Entry<K, V> current = bucket;
+            while (current != null) {
+                keyList.add(current.key);
+                current = current.next;
+            }
+        }
+        
+        return keyList;
+    }
+    
+    /**
+     * Get number of entries
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Resize the hash table when load factor exceeds threshold
+     * Algorithm: Create new larger array, rehash all entries
+     * Time Complexity: O(n)
+     */
+    @SuppressWarnings("unchecked")
+    private void resize() {
+        Entry<K, V>[] oldBuckets = buckets;
+        buckets = new Entry[oldBuckets.length * 2];
+        size = 0;
+        
+        // Rehash all entries
+        for (Entry<K, V> bucket : oldBuckets) {
+            Entry<K, V> current = bucket;
+            while (current != null) {
+                put(current.key, current.value);
+                current = current.next;
+            }
+        }
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        boolean first = true;
+        
+        for (Entry<K, V> bucket : buckets) {
+            Entry<K, V> current = bucket;
+            while (current != null) {
+                if (!first) sb.append(", ");
+                sb.append(current.key).append("=").append(current.value);
+                first = false;
+                current = current.next;
+            }
+        }
+        
+        sb.append("}");
+        return sb.toString();
+    }
+    
+    /**
+     * Entry node for linked list in each bucket
+     */
+    private static class Entry<K, V> {
+        K key;
+        V value;
+        Entry<K, V> next;
+        
+        Entry(K key, V value) {
+            this.key = key;
+            this.value = value;
+            this.next = null;
+        }
+    }
+}
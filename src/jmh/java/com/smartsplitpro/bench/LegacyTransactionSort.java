@@ -0,0 +1,62 @@
+package com.smartsplitpro.bench;
+
+import com.smartsplitpro.model.Transaction;
+
+import java.util.List;
+
+/**
+ * Baseline for {@code TransactionSortBenchmark}: the bubble sort
+ * {@code TransactionService.listByUser} used before the ordering moved into
+ * the query. Copied verbatim.
+ */
+class LegacyTransactionSort {
+
+    /**
+     * Manual Bubble Sort implementation for sorting transactions by timestamp
+     * (Most recent first - descending order)
+     * 
+     * Algorithm: Bubble Sort
+     * Time Complexity: O(n²) worst/average case, O(n) best case (already sorted)
+     * Space Complexity: O(1) - in-place sorting
+     * 
+     * Educational Note: Bubble Sort is slower than Quick Sort but easier to understand.
+     * Good for small datasets or when simplicity is important.
+     */
+    void bubbleSortTransactionsByTimestamp(List<Transaction> list) {
+        int n = list.size();
+        boolean swapped;
+        
+        for (int i = 0; i < n - 1; i++) {
+            swapped = false;
+            
+            for (int j = 0; j < n - 1 - i; j++) {
+                // Compare adjacent elements
+                java.time.LocalDateTime t1 = list.get(j).getTimestamp();
+                java.time.LocalDateTime t2 = list.get(j + 1).getTimestamp();
+                
+                // Handle null timestamps (nulls go to end)
+                if (t1 == null && t2 == null) continue;
+                if (t1 == null) {
+                    // Swap (null should be at end)
+                    Transaction temp = list.get(j);
+                    list.set(j, list.get(j + 1));
+                    list.set(j + 1, temp);
+                    swapped = true;
+                    continue;
+                }
+                if (t2 == null) continue; // t1 is already before null
+                
+                // For descending order: swap if t1 < t2 (t2 is more recent)
+                if (t1.compareTo(t2) < 0) {
+                    Transaction temp = list.get(j);
+                    list.set(j, list.get(j + 1));
+                    list.set(j + 1, temp);
+                    swapped = true;
+                }
+            }
+            
+            // If no swaps occurred, list is sorted
+            if (!swapped) break;
+        }
+    }
+}
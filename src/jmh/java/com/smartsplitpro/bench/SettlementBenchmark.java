@@ -0,0 +1,117 @@
+package com.smartsplitpro.bench;
+
+import com.smartsplitpro.model.Balance;
+import com.smartsplitpro.model.Settlement;
+import com.smartsplitpro.service.BalanceLedger;
+import com.smartsplitpro.service.CentsSettlementEngine;
+import com.smartsplitpro.service.ComponentSettlementExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The stages behind computeBalances and computeSettlements over synthetic
+ * ledgers of varying size and graph density:
+ * - ledgerRebuild: aggregate every transaction into the {@link BalanceLedger};
+ * - balances: materialise the global balances (computeBalances);
+ * - greedyPlan: the cents engine over the whole snapshot;
+ * - componentPlan: the same engine per connected component, in parallel
+ *   (computeSettlements with partitioning on);
+ * - legacyBigDecimalPlan: the original BigDecimal matcher with the
+ *   hand-written quick sorts, on a fresh copy of the balances.
+ *
+ * Throughput and sampled latency (p50/p90/p99/...) are reported for every
+ * stage; add {@code -prof gc} for the allocation rate. Run with:
+ * {@code mvn -Pjmh compile exec:exec -Djmh.args="SettlementBenchmark -prof gc"}
+ * and narrow the matrix with e.g. {@code -p users=1000 -p degree=4}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SettlementBenchmark {
+
+    @Param({"1000", "10000"})
+    int users;
+
+    @Param({"100000"})
+    int transactions;
+
+    // counterparties each user trades with
+    @Param({"4", "64"})
+    int degree;
+
+    // disconnected groups of users
+    @Param({"1", "100"})
+    int components;
+
+    SyntheticLedger ledgerData;
+    BalanceLedger ledger;
+    BalanceLedger.Snapshot snapshot;
+    List<Balance> balances;
+    CentsSettlementEngine greedy;
+    ComponentSettlementExecutor executor;
+    LegacyBalanceMatcher legacy;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ledgerData = SyntheticLedger.generate(users, transactions, degree, components, 42);
+        ledger = new BalanceLedger(ledgerData.scanner(), event -> { });
+        ledger.rebuild();
+        snapshot = ledger.snapshot();
+        balances = snapshot.getBalances();
+        greedy = new CentsSettlementEngine();
+        executor = new ComponentSettlementExecutor(0);
+        legacy = new LegacyBalanceMatcher();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public long ledgerRebuild() {
+        ledger.rebuild();
+        return ledger.version();
+    }
+
+    @Benchmark
+    public List<Balance> balances() {
+        return ledger.balances();
+    }
+
+    @Benchmark
+    public List<Settlement> greedyPlan() {
+        return greedy.settle(snapshot.getNames(), snapshot.getCents(), snapshot.size());
+    }
+
+    @Benchmark
+    public List<Settlement> componentPlan() {
+        return executor.settle(snapshot, (names, cents, count, deadline) -> greedy.settle(names, cents, count), Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<Settlement> legacyBigDecimalPlan() {
+        // the matcher consumes its input
+        List<Balance> copy = new ArrayList<>(balances.size());
+        for (Balance b : balances) copy.add(new Balance(b.getUsername(), b.getBalance()));
+        return legacy.match(copy);
+    }
+}
@@ -0,0 +1,67 @@
+package com.smartsplitpro.bench;
+
+import com.smartsplitpro.model.Transaction;
+import com.smartsplitpro.service.TransactionScanner;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic transaction sets for the benchmarks.
+ *
+ * Users are split into {@code components} equally sized groups that never
+ * trade with each other. Within a group each user only pays the next
+ * {@code degree} users (wrapping around), so {@code degree} controls how
+ * dense the debt graph is: low values give long chains, high values a
+ * near-complete graph.
+ */
+final class SyntheticLedger {
+    final List<Transaction> transactions;
+
+    private SyntheticLedger(List<Transaction> transactions) {
+        this.transactions = transactions;
+    }
+
+    static SyntheticLedger generate(int users, int transactions, int degree, int components, long seed) {
+        Random random = new Random(seed);
+        int groups = Math.max(1, Math.min(components, users / 2));
+        int groupSize = users / groups;
+        int span = Math.max(1, Math.min(degree, groupSize - 1));
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Transaction> out = new ArrayList<>(transactions);
+        for (int i = 0; i < transactions; i++) {
+            int group = random.nextInt(groups);
+            int payer = random.nextInt(groupSize);
+            int payee = (payer + 1 + random.nextInt(span)) % groupSize;
+            Transaction tx = new Transaction();
+            tx.setId((long) i + 1);
+            tx.setPayerUsername("user" + (group * groupSize + payer));
+            tx.setPayeeUsername("user" + (group * groupSize + payee));
+            tx.setAmount(BigDecimal.valueOf(1 + random.nextInt(100_000), 2));
+            tx.setTimestamp(start.plusSeconds(random.nextInt(365 * 24 * 3600)));
+            tx.setCreatedBy(tx.getPayerUsername());
+            out.add(tx);
+        }
+        return new SyntheticLedger(out);
+    }
+
+    /**
+     * A scanner over the generated rows, enough to drive
+     * {@link com.smartsplitpro.service.BalanceLedger#rebuild()}.
+     */
+    TransactionScanner scanner() {
+        return (afterId, action) -> {
+            long rows = 0;
+            for (Transaction tx : transactions) {
+                if (tx.getId() > afterId) {
+                    action.accept(tx);
+                    rows++;
+                }
+            }
+            return rows;
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package com.smartsplitpro.bench;
+
+import com.smartsplitpro.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Newest-first ordering of a user's transactions: the legacy bubble sort
+ * against {@link List#sort} (TimSort) with the same null-last rule. Both
+ * sort a fresh copy of the same shuffled list on every call.
+ *
+ * Run with: {@code mvn -Pjmh compile exec:exec -Djmh.args="TransactionSortBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionSortBenchmark {
+    private static final Comparator<Transaction> NEWEST_FIRST =
+            Comparator.comparing(Transaction::getTimestamp, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()));
+
+    @Param({"100", "1000", "10000"})
+    int transactions;
+
+    List<Transaction> rows;
+    LegacyTransactionSort legacy;
+
+    @Setup
+    public void setup() {
+        rows = SyntheticLedger.generate(100, transactions, 8, 1, 42).transactions;
+        legacy = new LegacyTransactionSort();
+    }
+
+    @Benchmark
+    public List<Transaction> legacyBubbleSort() {
+        List<Transaction> copy = new ArrayList<>(rows);
+        legacy.bubbleSortTransactionsByTimestamp(copy);
+        return copy;
+    }
+
+    @Benchmark
+    public List<Transaction> listSort() {
+        List<Transaction> copy = new ArrayList<>(rows);
+        copy.sort(NEWEST_FIRST);
+        return copy;
+    }
+}
@@ -0,0 +1,373 @@
+package com.smartsplitpro.loadtest;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replays a mixed read/write workload against a running instance seeded by
+ * WorkloadSeeder, then prints throughput and a latency histogram per
+ * endpoint.
+ *
+ * Run with the loadtest profile, e.g.
+ * {@code mvn -Ploadtest compile exec:java -Dloadtest.args="baseUrl=http://localhost:8080 concurrency=16 duration=60"}
+ *
+ * Options ({@code name=value}, optionally written {@code --name=value}):
+ * - baseUrl (http://localhost:8080), users (1000), prefix (load),
+ *   password (password), group-size (8): must match the seed run;
+ * - concurrency (16): workers, each logged in as its own seed user;
+ * - warmup (10) and duration (60) in seconds; warmup samples are discarded;
+ * - mix (write:10,transactions:30,balances:25,notifications:25,optimize:10):
+ *   relative weight of each operation;
+ * - think-ms (0): pause between requests of one worker;
+ * - seed (7): makes the operation sequence reproducible;
+ * - report: also write the report to this file.
+ */
+public class LoadDriver {
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+
+    enum Op {
+        WRITE("POST /api/transactions"),
+        TRANSACTIONS("GET /api/transactions?limit=50"),
+        BALANCES("GET /api/balances/me"),
+        NOTIFICATIONS("GET /api/personal-notifications"),
+        OPTIMIZE("GET /optimize");
+
+        final String label;
+
+        Op(String label) {
+            this.label = label;
+        }
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Map<String, String> args = parseArgs(argv);
+        String baseUrl = args.getOrDefault("baseUrl", "http://localhost:8080").replaceAll("/+$", "");
+        int users = Integer.parseInt(args.getOrDefault("users", "1000"));
+        String prefix = args.getOrDefault("prefix", "load");
+        String password = args.getOrDefault("password", "password");
+        int groupSize = Integer.parseInt(args.getOrDefault("group-size", "8"));
+        int concurrency = Integer.parseInt(args.getOrDefault("concurrency", "16"));
+        int warmup = Integer.parseInt(args.getOrDefault("warmup", "10"));
+        int duration = Integer.parseInt(args.getOrDefault("duration", "60"));
+        long thinkMs = Long.parseLong(args.getOrDefault("think-ms", "0"));
+        long seed = Long.parseLong(args.getOrDefault("seed", "7"));
+        Mix mix = Mix.parse(args.getOrDefault("mix", "write:10,transactions:30,balances:25,notifications:25,optimize:10"));
+
+        Map<Op, Histogram> histograms = new LinkedHashMap<>();
+        for (Op op : Op.values()) histograms.put(op, new Histogram());
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup * 1_000_000_000L;
+        long stopAt = measureFrom + duration * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(concurrency);
+        List<Thread> workers = new ArrayList<>();
+        Random seeds = new Random(seed);
+        for (int w = 0; w < concurrency; w++) {
+            int userIndex = w % users;
+            Random random = new Random(seeds.nextLong());
+            Thread t = new Thread(() -> {
+                try {
+                    Worker worker = new Worker(baseUrl, prefix, userIndex, users, groupSize, random);
+                    worker.login(password);
+                    while (System.nanoTime() < stopAt) {
+                        Op op = mix.next(random);
+                        long t0 = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = worker.run(op);
+                        } catch (IOException e) {
+                            ok = false;
+                        }
+                        long t1 = System.nanoTime();
+                        if (t0 >= measureFrom && t1 <= stopAt) histograms.get(op).record(t1 - t0, ok);
+                        if (thinkMs > 0) Thread.sleep(thinkMs);
+                    }
+                } catch (Exception e) {
+                    System.err.println("worker " + userIndex + " stopped: " + e);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + w);
+            workers.add(t);
+            t.start();
+        }
+        System.out.printf("Running %d workers against %s: %ds warmup + %ds measured%n", concurrency, baseUrl, warmup, duration);
+        done.await();
+
+        String report = report(histograms, duration, concurrency, mix);
+        System.out.print(report);
+        String reportFile = args.get("report");
+        if (reportFile != null) Files.writeString(Path.of(reportFile), report);
+    }
+
+    static Map<String, String> parseArgs(String[] argv) {
+        Map<String, String> out = new LinkedHashMap<>();
+        for (String a : argv) {
+            String arg = a.startsWith("--") ? a.substring(2) : a;
+            int eq = arg.indexOf('=');
+            if (eq < 0) out.put(arg, "true");
+            else out.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return out;
+    }
+
+    static String report(Map<Op, Histogram> histograms, int seconds, int concurrency, Mix mix) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%nconcurrency=%d measured=%ds mix=%s%n", concurrency, seconds, mix));
+        sb.append(String.format(Locale.ROOT, "%-34s %8s %6s %9s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "req/s", "mean ms", "p50", "p90", "p99", "p99.9", "max"));
+        Histogram total = new Histogram();
+        for (Map.Entry<Op, Histogram> e : histograms.entrySet()) {
+            Histogram h = e.getValue();
+            total.add(h);
+            if (h.count() == 0) continue;
+            sb.append(row(e.getKey().label, h, seconds));
+        }
+        sb.append(row("total", total, seconds));
+        for (Map.Entry<Op, Histogram> e : histograms.entrySet()) {
+            if (e.getValue().count() == 0) continue;
+            sb.append(String.format("%n%s latency distribution%n", e.getKey().label));
+            sb.append(e.getValue().bars());
+        }
+        return sb.toString();
+    }
+
+    private static String row(String label, Histogram h, int seconds) {
+        return String.format(Locale.ROOT, "%-34s %8d %6d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                label, h.count(), h.errors(), h.count() / (double) Math.max(1, seconds), h.meanMs(),
+                h.percentileMs(50), h.percentileMs(90), h.percentileMs(99), h.percentileMs(99.9), h.maxMs());
+    }
+
+    /**
+     * One logged-in session. Writes go to a random member of the worker's own
+     * friend group, the same shape the seeder produced.
+     */
+    static final class Worker {
+        private final HttpClient client;
+        private final String baseUrl;
+        private final String username;
+        private final String prefix;
+        private final int groupFirst;
+        private final int groupSize;
+        private final int self;
+        private final Random random;
+
+        Worker(String baseUrl, String prefix, int userIndex, int users, int groupSize, Random random) {
+            this.client = HttpClient.newBuilder()
+                    .cookieHandler(new CookieManager(null, CookiePolicy.ACCEPT_ALL))
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .build();
+            this.baseUrl = baseUrl;
+            this.prefix = prefix;
+            this.username = prefix + userIndex;
+            this.self = userIndex;
+            this.groupFirst = (userIndex / groupSize) * groupSize;
+            this.groupSize = Math.min(groupSize, users - groupFirst);
+            this.random = random;
+        }
+
+        void login(String password) throws IOException, InterruptedException {
+            HttpResponse<String> page = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            Matcher m = CSRF.matcher(page.body());
+            String form = "username=" + enc(username) + "&password=" + enc(password)
+                    + (m.find() ? "&_csrf=" + enc(m.group(1)) : "");
+            HttpResponse<Void> res = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                            .header("Content-Type", "application/x-www-form-urlencoded")
+                            .POST(HttpRequest.BodyPublishers.ofString(form)).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            String location = res.headers().firstValue("Location").orElse("");
+            if (res.statusCode() != 302 || location.contains("error")) {
+                throw new IOException("login failed for " + username + " (" + res.statusCode() + " " + location + ")");
+            }
+        }
+
+        boolean run(Op op) throws IOException, InterruptedException {
+            HttpRequest request;
+            switch (op) {
+                case WRITE -> {
+                    int payee = groupSize < 2 ? self
+                            : groupFirst + (self - groupFirst + 1 + random.nextInt(groupSize - 1)) % groupSize;
+                    String body = String.format(Locale.ROOT,
+                            "{\"description\":\"load\",\"amount\":%d.%02d,\"payerUsername\":\"%s\",\"payeeUsername\":\"%s\"}",
+                            1 + random.nextInt(50), random.nextInt(100), username, prefix + payee);
+                    request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/transactions"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+                }
+                case TRANSACTIONS -> request = get("/api/transactions?limit=50");
+                case BALANCES -> request = get("/api/balances/me");
+                case NOTIFICATIONS -> request = get("/api/personal-notifications");
+                default -> request = get("/optimize");
+            }
+            HttpResponse<Void> res = client.send(request, HttpResponse.BodyHandlers.discarding());
+            return res.statusCode() == 200;
+        }
+
+        private HttpRequest get(String path) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).GET().build();
+        }
+
+        private static String enc(String s) {
+            return URLEncoder.encode(s, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Weighted operation picker.
+     */
+    static final class Mix {
+        private final Op[] ops;
+        private final int[] cumulative;
+
+        private Mix(Op[] ops, int[] cumulative) {
+            this.ops = ops;
+            this.cumulative = cumulative;
+        }
+
+        static Mix parse(String spec) {
+            List<Op> ops = new ArrayList<>();
+            List<Integer> weights = new ArrayList<>();
+            for (String part : spec.split(",")) {
+                String[] kv = part.trim().split(":");
+                if (kv.length != 2) continue;
+                int weight = Integer.parseInt(kv[1].trim());
+                if (weight <= 0) continue;
+                ops.add(Op.valueOf(kv[0].trim().toUpperCase(Locale.ROOT)));
+                weights.add(weight);
+            }
+            if (ops.isEmpty()) throw new IllegalArgumentException("empty mix: " + spec);
+            int[] cumulative = new int[weights.size()];
+            int sum = 0;
+            for (int i = 0; i < cumulative.length; i++) cumulative[i] = sum += weights.get(i);
+            return new Mix(ops.toArray(new Op[0]), cumulative);
+        }
+
+        Op next(Random random) {
+            int r = random.nextInt(cumulative[cumulative.length - 1]);
+            for (int i = 0; i < cumulative.length; i++) if (r < cumulative[i]) return ops[i];
+            return ops[ops.length - 1];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < ops.length; i++) {
+                if (i > 0) sb.append(',');
+                sb.append(ops[i].name().toLowerCase(Locale.ROOT)).append(':').append(cumulative[i] - (i == 0 ? 0 : cumulative[i - 1]));
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Lock-free latency histogram with logarithmic buckets: four per power of
+     * two from 1 microsecond to about a minute, so percentiles are accurate to
+     * roughly 20%.
+     */
+    static final class Histogram {
+        private static final int SUB_BUCKETS = 4;
+        private static final int BUCKETS = 27 * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final java.util.concurrent.atomic.AtomicLong errors = new java.util.concurrent.atomic.AtomicLong();
+        private final java.util.concurrent.atomic.AtomicLong totalNanos = new java.util.concurrent.atomic.AtomicLong();
+        private final java.util.concurrent.atomic.AtomicLong maxNanos = new java.util.concurrent.atomic.AtomicLong();
+
+        void record(long nanos, boolean ok) {
+            counts.incrementAndGet(bucket(nanos));
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            if (!ok) errors.incrementAndGet();
+        }
+
+        void add(Histogram other) {
+            for (int i = 0; i < BUCKETS; i++) counts.addAndGet(i, other.counts.get(i));
+            errors.addAndGet(other.errors.get());
+            totalNanos.addAndGet(other.totalNanos.get());
+            maxNanos.accumulateAndGet(other.maxNanos.get(), Math::max);
+        }
+
+        static int bucket(long nanos) {
+            double micros = Math.max(1.0, nanos / 1000.0);
+            int b = (int) Math.floor(Math.log(micros) / Math.log(2) * SUB_BUCKETS);
+            return Math.min(BUCKETS - 1, Math.max(0, b));
+        }
+
+        // upper edge of bucket b in milliseconds
+        static double upperMs(int b) {
+            return Math.pow(2, (b + 1) / (double) SUB_BUCKETS) / 1000.0;
+        }
+
+        long count() {
+            long n = 0;
+            for (int i = 0; i < BUCKETS; i++) n += counts.get(i);
+            return n;
+        }
+
+        long errors() {
+            return errors.get();
+        }
+
+        double meanMs() {
+            long n = count();
+            return n == 0 ? 0 : totalNanos.get() / 1e6 / n;
+        }
+
+        double maxMs() {
+            return maxNanos.get() / 1e6;
+        }
+
+        double percentileMs(double p) {
+            long n = count();
+            if (n == 0) return 0;
+            long rank = (long) Math.ceil(n * p / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= rank) return Math.min(upperMs(i), maxMs());
+            }
+            return maxMs();
+        }
+
+        String bars() {
+            long max = 0;
+            int first = -1, last = -1;
+            for (int i = 0; i < BUCKETS; i++) {
+                long c = counts.get(i);
+                if (c == 0) continue;
+                if (first < 0) first = i;
+                last = i;
+                max = Math.max(max, c);
+            }
+            StringBuilder sb = new StringBuilder();
+            for (int i = first; i >= 0 && i <= last; i++) {
+                long c = counts.get(i);
+                int width = (int) Math.round(40.0 * c / max);
+                sb.append(String.format(Locale.ROOT, "  <= %9.3f ms %8d %s%n", upperMs(i), c, "#".repeat(width)));
+            }
+            return sb.toString();
+        }
+    }
+}
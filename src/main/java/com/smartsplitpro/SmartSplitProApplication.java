@@ -13,6 +13,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 
 @SpringBootApplication
 public class SmartSplitProApplication {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(SmartSplitProApplication.class);
     
     private final Environment environment;
     
@@ -51,7 +52,7 @@ public class SmartSplitProApplication {
                 u.setPassword(passwordEncoder.encode("password"));
                 u.setRole("ROLE_USER");
                 userRepository.save(u);
-                System.out.println("Created default user 'admin' with password 'password'");
+                log.info("Created default user 'admin' with password 'password'");
             }
         };
     }
@@ -2,6 +2,8 @@ package com.smartsplitpro.controller;
 
 import com.smartsplitpro.model.User;
 import com.smartsplitpro.repository.UserRepository;
+import com.smartsplitpro.service.NotificationDigests;
+import com.smartsplitpro.service.UserDirectory;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -19,11 +21,15 @@ public class AuthController {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
+    private final UserDirectory userDirectory;
+    private final NotificationDigests notificationDigests;
 
-    public AuthController(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager) {
+    public AuthController(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager, UserDirectory userDirectory, NotificationDigests notificationDigests) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
+        this.userDirectory = userDirectory;
+        this.notificationDigests = notificationDigests;
     }
 
     @GetMapping("/login")
@@ -69,6 +75,10 @@ public class AuthController {
         user.setRole("ROLE_USER");
         try {
             userRepository.save(user);
+            // the directory may have cached this name as unregistered
+            userDirectory.invalidate(normalized);
+            // counterparties see the new account's contact details and registration
+            notificationDigests.invalidate(normalized);
         } catch (DataIntegrityViolationException ex) {
             // Unique constraint failed — username already exists (race or placeholder user)
             model.addAttribute("error", "Username already exists — please choose another username");
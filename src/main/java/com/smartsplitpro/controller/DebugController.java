@@ -1,9 +1,16 @@
 package com.smartsplitpro.controller;
 
+import com.smartsplitpro.repository.HistoryParticipantRepository;
 import com.smartsplitpro.repository.PersonalSettlementRepository;
 import com.smartsplitpro.repository.TransactionRepository;
 import com.smartsplitpro.repository.TransactionHistoryRepository;
+import com.smartsplitpro.service.AuditHistoryWriter;
+import com.smartsplitpro.service.BalanceLedger;
+import com.smartsplitpro.service.LedgerCheckpoints;
+import com.smartsplitpro.service.LiveUpdates;
+import com.smartsplitpro.service.NotificationDigests;
 import com.smartsplitpro.service.TransactionService;
+import com.smartsplitpro.service.UserDirectory;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
@@ -16,15 +23,36 @@ public class DebugController {
     private final TransactionRepository transactionRepository;
     private final PersonalSettlementRepository personalSettlementRepository;
     private final TransactionHistoryRepository historyRepository;
+    private final HistoryParticipantRepository historyParticipantRepository;
+    private final BalanceLedger balanceLedger;
+    private final AuditHistoryWriter auditHistoryWriter;
+    private final UserDirectory userDirectory;
+    private final NotificationDigests notificationDigests;
+    private final LiveUpdates liveUpdates;
+    private final LedgerCheckpoints ledgerCheckpoints;
 
     public DebugController(TransactionService transactionService,
                            TransactionRepository transactionRepository,
                            PersonalSettlementRepository personalSettlementRepository,
-                           TransactionHistoryRepository historyRepository) {
+                           TransactionHistoryRepository historyRepository,
+                           HistoryParticipantRepository historyParticipantRepository,
+                           BalanceLedger balanceLedger,
+                           AuditHistoryWriter auditHistoryWriter,
+                           UserDirectory userDirectory,
+                           NotificationDigests notificationDigests,
+                           LiveUpdates liveUpdates,
+                           LedgerCheckpoints ledgerCheckpoints) {
         this.transactionService = transactionService;
         this.transactionRepository = transactionRepository;
         this.personalSettlementRepository = personalSettlementRepository;
         this.historyRepository = historyRepository;
+        this.historyParticipantRepository = historyParticipantRepository;
+        this.balanceLedger = balanceLedger;
+        this.auditHistoryWriter = auditHistoryWriter;
+        this.userDirectory = userDirectory;
+        this.notificationDigests = notificationDigests;
+        this.liveUpdates = liveUpdates;
+        this.ledgerCheckpoints = ledgerCheckpoints;
     }
 
     @GetMapping("/status")
@@ -46,6 +74,55 @@ public class DebugController {
         return out;
     }
 
+    // Consistency check: in-memory balance ledger vs a full recompute over all transactions
+    @GetMapping("/ledger")
+    @ResponseBody
+    public java.util.Map<String, Object> ledger() {
+        return transactionService.verifyBalanceLedger();
+    }
+
+    // How the ledger was built at startup and the last checkpoint written
+    @GetMapping("/ledger-checkpoints")
+    @ResponseBody
+    public java.util.Map<String, Object> ledgerCheckpoints() {
+        return ledgerCheckpoints.stats();
+    }
+
+    // Hit/miss counters of the versioned settlement-plan cache
+    @GetMapping("/settlement-cache")
+    @ResponseBody
+    public java.util.Map<String, Object> settlementCache() {
+        return transactionService.settlementCacheStats();
+    }
+
+    // Audit history writer queue and batch counters
+    @GetMapping("/audit")
+    @ResponseBody
+    public java.util.Map<String, Object> audit() {
+        return auditHistoryWriter.stats();
+    }
+
+    // User directory cache counters
+    @GetMapping("/user-directory")
+    @ResponseBody
+    public java.util.Map<String, Object> userDirectory() {
+        return userDirectory.stats();
+    }
+
+    // Notification digest counters
+    @GetMapping("/notification-digests")
+    @ResponseBody
+    public java.util.Map<String, Object> notificationDigests() {
+        return notificationDigests.stats();
+    }
+
+    // Open SSE connections and push counters
+    @GetMapping("/live-updates")
+    @ResponseBody
+    public java.util.Map<String, Object> liveUpdates() {
+        return liveUpdates.stats();
+    }
+
     @GetMapping("/reset")
     @ResponseBody
     public java.util.Map<String,Object> reset() {
@@ -62,7 +139,12 @@ public class DebugController {
         try {
             personalSettlementRepository.deleteAll();
             transactionRepository.deleteAll();
+            // write out queued audit entries first so none reappear after the wipe
+            auditHistoryWriter.flush();
+            historyParticipantRepository.deleteAllInBatch();
             historyRepository.deleteAll();
+            ledgerCheckpoints.invalidateAll();
+            balanceLedger.rebuild();
             out.put("status", "ok");
             out.put("message", "All transactions, personal settlements, and history cleared");
         } catch (Exception e) {
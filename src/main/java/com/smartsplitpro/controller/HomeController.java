@@ -18,10 +18,24 @@ import com.smartsplitpro.model.Balance;
 
 @Controller
 public class HomeController {
-    private final TransactionService transactionService;
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(HomeController.class);
 
-    public HomeController(TransactionService transactionService) {
+    private final TransactionService transactionService;
+    private final com.smartsplitpro.service.TransactionExporter transactionExporter;
+    private final com.smartsplitpro.service.NotificationDigests notificationDigests;
+    private final com.smartsplitpro.service.LiveUpdates liveUpdates;
+    private final com.smartsplitpro.service.DashboardService dashboardService;
+    private final com.smartsplitpro.service.TransactionImporter transactionImporter;
+    private final com.smartsplitpro.service.LedgerCheckpoints ledgerCheckpoints;
+
+    public HomeController(TransactionService transactionService, com.smartsplitpro.service.TransactionExporter transactionExporter, com.smartsplitpro.service.NotificationDigests notificationDigests, com.smartsplitpro.service.LiveUpdates liveUpdates, com.smartsplitpro.service.DashboardService dashboardService, com.smartsplitpro.service.TransactionImporter transactionImporter, com.smartsplitpro.service.LedgerCheckpoints ledgerCheckpoints) {
         this.transactionService = transactionService;
+        this.transactionImporter = transactionImporter;
+        this.ledgerCheckpoints = ledgerCheckpoints;
+        this.transactionExporter = transactionExporter;
+        this.notificationDigests = notificationDigests;
+        this.liveUpdates = liveUpdates;
+        this.dashboardService = dashboardService;
     }
 
     @GetMapping({"/", "/index"})
@@ -54,7 +68,7 @@ public class HomeController {
             return "index";
         } catch (Exception e) {
             // Log and show friendly error page instead of Whitelabel
-            e.printStackTrace();
+            log.error("Failed to load dashboard", e);
             model.addAttribute("message", "Failed to load dashboard: " + e.getMessage());
             return "error";
         }
@@ -89,34 +103,115 @@ public class HomeController {
         return out;
     }
 
+    // Everything the dashboard renders in one response, computed from a single ledger snapshot
+    @GetMapping("/api/dashboard")
+    @ResponseBody
+    public java.util.Map<String,Object> apiDashboard() {
+        String user = null;
+        boolean isAdmin = false;
+        try {
+            org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
+            if (auth != null) {
+                user = auth.getName();
+                isAdmin = auth.getAuthorities().stream().anyMatch(a -> a.getAuthority() != null && a.getAuthority().contains("ADMIN"));
+            }
+        } catch (Exception ignored) {}
+        return dashboardService.build(user, isAdmin);
+    }
+
     // API to provide transactions as JSON for export and graphs
-    // Returns ALL transactions in the system
+    // Returns ALL transactions in the system; with limit and/or cursor returns one keyset page
     @GetMapping("/api/transactions")
     @ResponseBody
-    public List<Transaction> apiTransactions() {
+    public Object apiTransactions(@org.springframework.web.bind.annotation.RequestParam(required = false) Integer limit,
+                                  @org.springframework.web.bind.annotation.RequestParam(required = false) String cursor) {
+        if (limit != null || cursor != null) return transactionService.pageAll(cursor, limit);
         // Return all global transactions
         return transactionService.listAll();
     }
 
+    // Streamed export of all transactions (?stream=true): rows are written as they are read
+    @GetMapping(value = "/api/transactions", params = "stream=true")
+    public org.springframework.http.ResponseEntity<org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody> streamTransactions() {
+        return org.springframework.http.ResponseEntity.ok()
+                .contentType(org.springframework.http.MediaType.APPLICATION_JSON)
+                .body(out -> transactionExporter.writeAll(out));
+    }
+
     // API to create a transaction via AJAX (JSON)
     @PostMapping("/api/transactions")
     @ResponseBody
     public Transaction createTransaction(@org.springframework.web.bind.annotation.RequestBody Transaction tx) {
         if (tx.getTimestamp() == null) tx.setTimestamp(java.time.LocalDateTime.now());
         if (tx.getAmount() == null) tx.setAmount(java.math.BigDecimal.ZERO);
-        try {
+        if (log.isDebugEnabled()) {
             String user = null;
             try { org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication(); if (auth!=null) user = auth.getName(); } catch (Exception ignored) {}
-            System.out.println("[DEBUG] createTransaction invoked by=" + user + " payload payer=" + tx.getPayerUsername() + " payee=" + tx.getPayeeUsername() + " amt=" + tx.getAmount());
-        } catch (Exception ignored) {}
+            log.debug("createTransaction invoked by={} payload payer={} payee={} amt={}", user, tx.getPayerUsername(), tx.getPayeeUsername(), tx.getAmount());
+        }
         return transactionService.addTransaction(tx);
     }
 
+    // Bulk import: CSV (with a header row) or NDJSON body, streamed and committed in chunks.
+    // The format comes from ?format=csv|ndjson or the Content-Type (text/csv, application/x-ndjson);
+    // personalEntries=false skips the personal settlement entry per row
+    @PostMapping("/api/transactions/import")
+    @ResponseBody
+    public java.util.Map<String, Object> importTransactions(@org.springframework.web.bind.annotation.RequestParam(required = false) String format,
+                                                            @org.springframework.web.bind.annotation.RequestParam(defaultValue = "true") boolean personalEntries,
+                                                            jakarta.servlet.http.HttpServletRequest request) {
+        String user = null;
+        try {
+            org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
+            if (auth != null) user = auth.getName();
+        } catch (Exception ignored) {}
+
+        java.util.Map<String, Object> resp = new java.util.HashMap<>();
+        com.smartsplitpro.service.TransactionImporter.Format detected = com.smartsplitpro.service.TransactionImporter.Format.detect(format, request.getContentType());
+        if (detected == null) {
+            resp.put("status", "error");
+            resp.put("message", "Unknown import format; send text/csv or application/x-ndjson, or pass format=csv|ndjson");
+            return resp;
+        }
+        try {
+            return transactionImporter.importTransactions(request.getReader(), detected, user, personalEntries);
+        } catch (Exception e) {
+            resp.put("status", "error");
+            resp.put("message", "Import failed: " + e.getMessage());
+            return resp;
+        }
+    }
+
+    // Write a balance ledger checkpoint now, even if the ledger has not changed since the last one.
+    // Admin only: the built-in admin account (as for /debug/reset) or any ADMIN authority.
+    @PostMapping("/api/admin/ledger/checkpoint")
+    @ResponseBody
+    public org.springframework.http.ResponseEntity<java.util.Map<String, Object>> checkpointLedger() {
+        String user = null;
+        boolean isAdmin = false;
+        try {
+            org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
+            if (auth != null) {
+                user = auth.getName();
+                isAdmin = "admin".equals(user) || auth.getAuthorities().stream().anyMatch(a -> a.getAuthority() != null && a.getAuthority().contains("ADMIN"));
+            }
+        } catch (Exception ignored) {}
+        if (!isAdmin) {
+            java.util.Map<String, Object> resp = new java.util.HashMap<>();
+            resp.put("status", "error");
+            resp.put("message", "Only an administrator can write a ledger checkpoint");
+            return org.springframework.http.ResponseEntity.status(org.springframework.http.HttpStatus.FORBIDDEN).body(resp);
+        }
+        return org.springframework.http.ResponseEntity.ok(ledgerCheckpoints.checkpoint("admin", true));
+    }
+
     // Trigger optimization (returns instructions)
+    // Optional engine=greedy|exact selects the algorithm; budgetMs caps the exact search (clamped to settlement.exact.max-budget-ms)
     @GetMapping("/optimize")
     @ResponseBody
-    public List<String> optimize() {
-        return transactionService.optimizeSettlements();
+    public List<String> optimize(@org.springframework.web.bind.annotation.RequestParam(required = false) String engine,
+                                 @org.springframework.web.bind.annotation.RequestParam(required = false) Long budgetMs) {
+        return transactionService.optimizeSettlements(transactionService.parseSettlementEngine(engine), budgetMs);
     }
 
     @GetMapping("/api/optimize/me")
@@ -146,10 +241,11 @@ public class HomeController {
     // The graph shows the optimal settlement flow between all users
     @GetMapping("/api/settlements")
     @ResponseBody
-    public java.util.List<com.smartsplitpro.model.Settlement> apiSettlements() {
+    public java.util.List<com.smartsplitpro.model.Settlement> apiSettlements(@org.springframework.web.bind.annotation.RequestParam(required = false) String engine,
+                                                                             @org.springframework.web.bind.annotation.RequestParam(required = false) Long budgetMs) {
         // Return all global settlements for the network graph
         // This shows the complete settlement network, not just the current user
-        return transactionService.computeSettlements();
+        return transactionService.computeSettlements(transactionService.parseSettlementEngine(engine), budgetMs);
     }
 
     // Per-user settlements for private personal graph (only edges involving the user)
@@ -182,18 +278,38 @@ public class HomeController {
     // Per-user transactions endpoint
     @GetMapping("/api/transactions/me")
     @ResponseBody
-    public java.util.List<com.smartsplitpro.model.Transaction> apiTransactionsMe() {
+    public Object apiTransactionsMe(@org.springframework.web.bind.annotation.RequestParam(required = false) Integer limit,
+                                    @org.springframework.web.bind.annotation.RequestParam(required = false) String cursor) {
         String user = null;
         try {
             org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
             if (auth != null) user = auth.getName();
         } catch (Exception ignored) {}
         if (user == null) return java.util.Collections.emptyList();
+        if (limit != null || cursor != null) return transactionService.pageByUser(user, cursor, limit);
         java.util.List<com.smartsplitpro.model.Transaction> out = transactionService.listByUser(user);
-        try { System.out.println("[DEBUG] /api/transactions/me user=" + user + " count=" + (out==null?0:out.size())); } catch (Exception ignored) {}
+        log.debug("/api/transactions/me user={} count={}", user, out == null ? 0 : out.size());
         return out;
     }
 
+    // Streamed export of the current user's transactions (?stream=true)
+    @GetMapping(value = "/api/transactions/me", params = "stream=true")
+    public org.springframework.http.ResponseEntity<org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody> streamTransactionsMe() {
+        String user = null;
+        try {
+            org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
+            if (auth != null) user = auth.getName();
+        } catch (Exception ignored) {}
+        // resolve the user here: the body is written on another thread
+        final String owner = user;
+        return org.springframework.http.ResponseEntity.ok()
+                .contentType(org.springframework.http.MediaType.APPLICATION_JSON)
+                .body(out -> {
+                    if (owner == null) out.write("[]".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                    else transactionExporter.writeOwnedBy(owner, out);
+                });
+    }
+
     // Permanently delete a transaction by id (used by dashboard delete action)
     @DeleteMapping("/api/transactions/{id}")
     @ResponseBody
@@ -206,37 +322,19 @@ public class HomeController {
 
     // Transaction history (audit) - includes created/deleted snapshots
     // Returns ONLY history for transactions involving the authenticated user
+    // Optional page/size paginate; without size every matching entry is returned
     @GetMapping("/api/transactions/history")
     @ResponseBody
-    public java.util.List<com.smartsplitpro.model.TransactionHistory> transactionHistory() {
+    public java.util.List<com.smartsplitpro.model.TransactionHistory> transactionHistory(@org.springframework.web.bind.annotation.RequestParam(required = false) Integer page,
+                                                                                       @org.springframework.web.bind.annotation.RequestParam(required = false) Integer size) {
         String user = null;
         try {
             org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
             if (auth != null) user = auth.getName();
         } catch (Exception ignored) {}
-        
-        // Get all history entries and filter to only those involving the current user
-        java.util.List<com.smartsplitpro.model.TransactionHistory> all = transactionService.listHistory();
-        java.util.List<com.smartsplitpro.model.TransactionHistory> userHistory = new java.util.ArrayList<>();
-        
-        if (user != null && all != null) {
-            for (com.smartsplitpro.model.TransactionHistory h : all) {
-                if (h == null || h.getPayload() == null) continue;
-                // Only include entries where current user is the performer or is involved in the transaction
-                if (user.equals(h.getPerformedBy())) {
-                    userHistory.add(h);
-                } else {
-                    // Check if this transaction involves the current user
-                    try {
-                        String payload = h.getPayload();
-                        if (payload.contains("\"" + user + "\"")) {
-                            userHistory.add(h);
-                        }
-                    } catch (Exception ignored) {}
-                }
-            }
-        }
-        return userHistory;
+
+        // entries where the user is the performer or is involved, looked up through the participant index
+        return transactionService.listHistoryForUser(user, page, size);
     }
 
     // Save a personal settlement snapshot for the currently authenticated user
@@ -270,7 +368,7 @@ public class HomeController {
             model.addAttribute("currentUser", user);
             return "personal";
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Failed to open Personal page", e);
             model.addAttribute("message", "Failed to open Personal page: " + e.getMessage());
             return "error";
         }
@@ -279,20 +377,14 @@ public class HomeController {
     // API to fetch personal snapshots for the current user
     @GetMapping("/api/personal")
     @ResponseBody
-    public java.util.List<com.smartsplitpro.model.TransactionHistory> apiPersonal() {
+    public java.util.List<com.smartsplitpro.model.TransactionHistory> apiPersonal(@org.springframework.web.bind.annotation.RequestParam(required = false) Integer page,
+                                                                                @org.springframework.web.bind.annotation.RequestParam(required = false) Integer size) {
         String user = null;
         try {
             org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
             if (auth != null) user = auth.getName();
         } catch (Exception ignored) {}
-        java.util.List<com.smartsplitpro.model.TransactionHistory> all = transactionService.listHistory();
-        java.util.List<com.smartsplitpro.model.TransactionHistory> out = new java.util.ArrayList<>();
-        for (com.smartsplitpro.model.TransactionHistory h: all) {
-            if ("PERSONAL_SETTLEMENT".equals(h.getAction()) && (user==null || user.equals(h.getPerformedBy()))) {
-                out.add(h);
-            }
-        }
-        return out;
+        return transactionService.listPersonalSnapshots(user, page, size);
     }
 
     // API to fetch personal unsettled settlements for notifications
@@ -305,40 +397,15 @@ public class HomeController {
             if (auth != null) user = auth.getName();
         } catch (Exception ignored) {}
 
-    java.util.Map<String, java.util.List<com.smartsplitpro.model.PersonalSettlement>> map = transactionService.listPersonalNotifications(user);
-        java.util.List<com.smartsplitpro.model.PersonalSettlement> owe = map.getOrDefault("owe", java.util.Collections.emptyList());
-        java.util.List<com.smartsplitpro.model.PersonalSettlement> receive = map.getOrDefault("receive", java.util.Collections.emptyList());
-
-        boolean hasNotifyOnly = false;
-        for (com.smartsplitpro.model.PersonalSettlement p : owe) if (p.isNotifyOnly()) { hasNotifyOnly = true; break; }
-        if (!hasNotifyOnly) for (com.smartsplitpro.model.PersonalSettlement p : receive) if (p.isNotifyOnly()) { hasNotifyOnly = true; break; }
-
-        boolean limitedView = false;
-        if (hasNotifyOnly) {
-            boolean hasTransactions = false;
-            try {
-                java.util.List<com.smartsplitpro.model.Transaction> userTxs = transactionService.listByUser(user);
-                hasTransactions = userTxs != null && !userTxs.isEmpty();
-            } catch (Exception ignored) {}
-
-            boolean hasNonNotifyPersonal = false;
-            try {
-                java.util.List<com.smartsplitpro.model.PersonalSettlement> personal = transactionService.listPersonalAll(user);
-                if (personal != null) {
-                    for (com.smartsplitpro.model.PersonalSettlement p : personal) {
-                        if (p != null && !p.isNotifyOnly()) { hasNonNotifyPersonal = true; break; }
-                    }
-                }
-            } catch (Exception ignored) {}
-
-            limitedView = !hasTransactions && !hasNonNotifyPersonal;
-        }
+        // served from the user's digest; recomputed only after a change that affects it
+        com.smartsplitpro.service.NotificationDigests.Digest digest = notificationDigests.get(user);
+        java.util.List<com.smartsplitpro.model.PersonalSettlement> owe = digest.getOwe();
+        java.util.List<com.smartsplitpro.model.PersonalSettlement> receive = digest.getReceive();
+        boolean limitedView = digest.isLimitedView();
 
         java.util.Map<String,Object> resp = new java.util.HashMap<>();
-        try {
-            System.out.println("[OPTIMIZED NOTIFICATIONS] user=" + user + " optimizedOwes=" + owe.size() + " optimizedReceives=" + receive.size() + " limitedView=" + limitedView);
-            System.out.println("[NOTIFICATION TYPE] These are OPTIMIZED settlements (greedy algorithm result), NOT raw transactions");
-        } catch (Exception ignored) {}
+        // these are optimized settlements (settlement plan result), not raw transactions
+        log.debug("[OPTIMIZED NOTIFICATIONS] user={} optimizedOwes={} optimizedReceives={} limitedView={}", user, owe.size(), receive.size(), limitedView);
         resp.put("owe", owe);
         resp.put("receive", receive);
         resp.put("limitedView", limitedView);
@@ -346,6 +413,18 @@ public class HomeController {
         return resp;
     }
 
+    // Server-Sent Events stream of balance and notification updates for the current user
+    @GetMapping(value = "/api/events", produces = org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public org.springframework.web.servlet.mvc.method.annotation.SseEmitter apiEvents() {
+        String user = null;
+        try {
+            org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
+            if (auth != null) user = auth.getName();
+        } catch (Exception ignored) {}
+        return liveUpdates.open(user);
+    }
+
     // API to fetch all personal settlements (grouping handled client-side)
     @GetMapping("/api/personal-entries")
     @ResponseBody
@@ -368,14 +447,10 @@ public class HomeController {
             if (auth != null) user = auth.getName();
         } catch (Exception ignored) {}
         
-        java.util.Map<String, Object> comparison = transactionService.getOptimizedNotificationsWithComparison(user);
+        java.util.Map<String, Object> comparison = notificationDigests.get(user).getComparison();
         
-        try {
-            System.out.println("[COMPARISON] user=" + user + 
-                " rawTransactions=" + comparison.get("raw_count") + 
-                " optimizedSettlements=" + comparison.get("optimized_count") +
-                " savings=" + comparison.get("savings") + " transactions");
-        } catch (Exception ignored) {}
+        log.debug("[COMPARISON] user={} rawTransactions={} optimizedSettlements={} savings={} transactions",
+                user, comparison.get("raw_count"), comparison.get("optimized_count"), comparison.get("savings"));
         
         return comparison;
     }
@@ -446,7 +521,7 @@ public class HomeController {
             model.addAttribute("title", "Transaction History");
             return "history";
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Failed to open History page", e);
             model.addAttribute("message", "Failed to open History page: " + e.getMessage());
             return "error";
         }
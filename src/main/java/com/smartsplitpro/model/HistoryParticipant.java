@@ -0,0 +1,56 @@
+package com.smartsplitpro.model;
+
+import jakarta.persistence.*;
+
+/**
+ * A user named by a {@link TransactionHistory} entry, so history can be looked
+ * up per user through an index instead of scanning payloads.
+ */
+@Entity
+@Table(name = "history_participant", indexes = {
+        @Index(name = "idx_history_participant_user", columnList = "username, history_id"),
+        @Index(name = "idx_history_participant_history", columnList = "history_id")
+})
+public class HistoryParticipant {
+    // who performed the action
+    public static final String PERFORMER = "PERFORMER";
+    // transaction fields of CREATED / DELETED entries
+    public static final String PAYER = "PAYER";
+    public static final String PAYEE = "PAYEE";
+    public static final String CREATOR = "CREATOR";
+    // personal settlement snapshots: the snapshot owner and the users in its entries
+    public static final String OWNER = "OWNER";
+    public static final String COUNTERPARTY = "COUNTERPARTY";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "history_participant_seq")
+    @SequenceGenerator(name = "history_participant_seq", sequenceName = "history_participant_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "history_id", nullable = false)
+    private Long historyId;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(nullable = false, length = 16)
+    private String role;
+
+    public HistoryParticipant() {}
+
+    public HistoryParticipant(Long historyId, String username, String role) {
+        this.historyId = historyId;
+        this.username = username;
+        this.role = role;
+    }
+
+    public Long getId() { return id; }
+    public Long getHistoryId() { return historyId; }
+    public String getUsername() { return username; }
+    public String getRole() { return role; }
+
+    public void setId(Long id) { this.id = id; }
+    public void setHistoryId(Long historyId) { this.historyId = historyId; }
+    public void setUsername(String username) { this.username = username; }
+    public void setRole(String role) { this.role = role; }
+}
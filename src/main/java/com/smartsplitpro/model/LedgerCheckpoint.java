@@ -0,0 +1,67 @@
+package com.smartsplitpro.model;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+
+/**
+ * Header of a persisted balance ledger checkpoint. The balances themselves
+ * are {@link LedgerCheckpointEntry} rows; on startup the newest valid
+ * checkpoint is loaded and only transactions with a higher id are replayed.
+ */
+@Entity
+@Table(name = "ledger_checkpoint", indexes = {
+        @Index(name = "idx_ledger_checkpoint_valid", columnList = "valid, id")
+})
+public class LedgerCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_checkpoint_seq")
+    @SequenceGenerator(name = "ledger_checkpoint_seq", sequenceName = "ledger_checkpoint_seq", allocationSize = 1)
+    private Long id;
+
+    // highest transaction id applied to the checkpointed state
+    private long lastTransactionId;
+
+    // transactions applied, all with id <= lastTransactionId
+    private long transactions;
+
+    private int users;
+
+    private int entries;
+
+    // scheduled, admin or shutdown
+    private String reason;
+
+    // cleared when a transaction the checkpoint covers is deleted
+    private boolean valid;
+
+    private OffsetDateTime createdAt;
+
+    public LedgerCheckpoint() {}
+
+    public LedgerCheckpoint(long lastTransactionId, long transactions, int users, int entries, String reason, OffsetDateTime createdAt) {
+        this.lastTransactionId = lastTransactionId;
+        this.transactions = transactions;
+        this.users = users;
+        this.entries = entries;
+        this.reason = reason;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() { return id; }
+    public long getLastTransactionId() { return lastTransactionId; }
+    public long getTransactions() { return transactions; }
+    public int getUsers() { return users; }
+    public int getEntries() { return entries; }
+    public String getReason() { return reason; }
+    public boolean isValid() { return valid; }
+    public OffsetDateTime getCreatedAt() { return createdAt; }
+
+    public void setId(Long id) { this.id = id; }
+    public void setLastTransactionId(long lastTransactionId) { this.lastTransactionId = lastTransactionId; }
+    public void setTransactions(long transactions) { this.transactions = transactions; }
+    public void setUsers(int users) { this.users = users; }
+    public void setEntries(int entries) { this.entries = entries; }
+    public void setReason(String reason) { this.reason = reason; }
+    public void setValid(boolean valid) { this.valid = valid; }
+    public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,71 @@
+package com.smartsplitpro.model;
+
+import jakarta.persistence.*;
+
+/**
+ * One row of a {@link LedgerCheckpoint}:
+ * - GLOBAL: net balance of {@code username} in minor units (cents) and the
+ *   number of transactions touching it;
+ * - OWNER: the same within the personal view of {@code owner};
+ * - PAIR: the number of transactions between {@code username} and
+ *   {@code counterparty}, which the ledger uses to split users into groups.
+ * Rows are written in the ledger's own order and read back by id.
+ */
+@Entity
+@Table(name = "ledger_checkpoint_entry", indexes = {
+        @Index(name = "idx_ledger_checkpoint_entry_checkpoint", columnList = "checkpoint_id, id")
+})
+public class LedgerCheckpointEntry {
+    public enum Kind { GLOBAL, OWNER, PAIR }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_checkpoint_entry_seq")
+    @SequenceGenerator(name = "ledger_checkpoint_entry_seq", sequenceName = "ledger_checkpoint_entry_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "checkpoint_id")
+    private Long checkpointId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 8)
+    private Kind kind;
+
+    private String owner;
+
+    private String username;
+
+    private String counterparty;
+
+    private long cents;
+
+    private int refs;
+
+    public LedgerCheckpointEntry() {}
+
+    public LedgerCheckpointEntry(Kind kind, String owner, String username, String counterparty, long cents, int refs) {
+        this.kind = kind;
+        this.owner = owner;
+        this.username = username;
+        this.counterparty = counterparty;
+        this.cents = cents;
+        this.refs = refs;
+    }
+
+    public Long getId() { return id; }
+    public Long getCheckpointId() { return checkpointId; }
+    public Kind getKind() { return kind; }
+    public String getOwner() { return owner; }
+    public String getUsername() { return username; }
+    public String getCounterparty() { return counterparty; }
+    public long getCents() { return cents; }
+    public int getRefs() { return refs; }
+
+    public void setId(Long id) { this.id = id; }
+    public void setCheckpointId(Long checkpointId) { this.checkpointId = checkpointId; }
+    public void setKind(Kind kind) { this.kind = kind; }
+    public void setOwner(String owner) { this.owner = owner; }
+    public void setUsername(String username) { this.username = username; }
+    public void setCounterparty(String counterparty) { this.counterparty = counterparty; }
+    public void setCents(long cents) { this.cents = cents; }
+    public void setRefs(int refs) { this.refs = refs; }
+}
@@ -5,9 +5,15 @@ import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_personal_settlement_from", columnList = "from_user, settled"),
+        @Index(name = "idx_personal_settlement_to", columnList = "to_user, settled")
+})
 public class PersonalSettlement {
+    // sequence-backed ids (allocated 50 at a time) so inserts can use JDBC batching
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "personal_settlement_seq")
+    @SequenceGenerator(name = "personal_settlement_seq", sequenceName = "personal_settlement_seq", allocationSize = 50)
     private Long id;
 
     // user who owes money
@@ -5,9 +5,17 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_transaction_payer", columnList = "payer_username"),
+        @Index(name = "idx_transaction_payee", columnList = "payee_username"),
+        @Index(name = "idx_transaction_created_by", columnList = "created_by, timestamp"),
+        @Index(name = "idx_transaction_timestamp", columnList = "timestamp, id")
+})
 public class Transaction {
+    // sequence-backed ids (allocated 50 at a time) so inserts can use JDBC batching
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transaction_seq", allocationSize = 50)
     private Long id;
 
     private String description;
@@ -4,10 +4,14 @@ import jakarta.persistence.*;
 import java.time.OffsetDateTime;
 
 @Entity
-@Table(name = "transaction_history")
+@Table(name = "transaction_history", indexes = {
+        @Index(name = "idx_history_performer_action", columnList = "performed_by, action, timestamp")
+})
 public class TransactionHistory {
+    // sequence-backed ids (allocated 50 at a time) so batched inserts can use JDBC batching
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_history_seq")
+    @SequenceGenerator(name = "transaction_history_seq", sequenceName = "transaction_history_seq", allocationSize = 50)
     private Long id;
 
     private Long transactionId;
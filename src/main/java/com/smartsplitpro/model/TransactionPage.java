@@ -0,0 +1,28 @@
+package com.smartsplitpro.model;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated transaction listing. Pass {@code nextCursor}
+ * back as {@code cursor} to fetch the following page; it is null on the last page.
+ */
+public class TransactionPage {
+    private List<Transaction> items;
+    private String nextCursor;
+    private int limit;
+
+    public TransactionPage() {}
+
+    public TransactionPage(List<Transaction> items, String nextCursor, int limit) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.limit = limit;
+    }
+
+    public List<Transaction> getItems() { return items; }
+    public void setItems(List<Transaction> items) { this.items = items; }
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+}
@@ -0,0 +1,7 @@
+package com.smartsplitpro.repository;
+
+import com.smartsplitpro.model.HistoryParticipant;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface HistoryParticipantRepository extends JpaRepository<HistoryParticipant, Long> {
+}
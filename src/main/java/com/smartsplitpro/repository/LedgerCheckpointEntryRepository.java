@@ -0,0 +1,19 @@
+package com.smartsplitpro.repository;
+
+import com.smartsplitpro.model.LedgerCheckpointEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface LedgerCheckpointEntryRepository extends JpaRepository<LedgerCheckpointEntry, Long> {
+    // Read once at startup; nothing is modified, so skip the dirty-checking snapshots
+    @org.springframework.data.jpa.repository.QueryHints({
+            @jakarta.persistence.QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @jakarta.persistence.QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_READ_ONLY, value = "true")})
+    java.util.List<LedgerCheckpointEntry> findByCheckpointIdOrderById(Long checkpointId);
+
+    @Modifying
+    @Query("delete from LedgerCheckpointEntry e where e.checkpointId in :checkpointIds")
+    int deleteByCheckpointIds(@Param("checkpointIds") java.util.Collection<Long> checkpointIds);
+}
@@ -0,0 +1,30 @@
+package com.smartsplitpro.repository;
+
+import com.smartsplitpro.model.LedgerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface LedgerCheckpointRepository extends JpaRepository<LedgerCheckpoint, Long> {
+    java.util.Optional<LedgerCheckpoint> findFirstByValidTrueOrderByIdDesc();
+
+    java.util.List<LedgerCheckpoint> findAllByOrderByIdDesc();
+
+    @Modifying
+    @Query("update LedgerCheckpoint c set c.valid = true where c.id = :id")
+    int markValid(@Param("id") long id);
+
+    @Modifying
+    @Query("update LedgerCheckpoint c set c.valid = false where c.id = :id")
+    int markInvalid(@Param("id") long id);
+
+    // A deleted transaction is part of every checkpoint taken after it was applied
+    @Modifying
+    @Query("update LedgerCheckpoint c set c.valid = false where c.valid = true and c.lastTransactionId >= :transactionId")
+    int invalidateCovering(@Param("transactionId") long transactionId);
+
+    @Modifying
+    @Query("update LedgerCheckpoint c set c.valid = false where c.valid = true")
+    int invalidateAll();
+}
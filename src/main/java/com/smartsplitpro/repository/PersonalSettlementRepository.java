@@ -9,6 +9,9 @@ public interface PersonalSettlementRepository extends JpaRepository<PersonalSett
     List<PersonalSettlement> findByToUserAndSettledFalseOrderByCreatedAtDesc(String toUser);
     // All settlements involving a user (either as payer or receiver), newest first
     List<PersonalSettlement> findByFromUserOrToUserOrderByCreatedAtDesc(String fromUser, String toUser);
+    // Settled entries involving a user (either as payer or receiver)
+    @org.springframework.data.jpa.repository.Query("select ps from PersonalSettlement ps where ps.settled = true and (ps.fromUser = :username or ps.toUser = :username)")
+    List<PersonalSettlement> findSettledInvolving(@org.springframework.data.repository.query.Param("username") String username);
     java.util.Optional<PersonalSettlement> findFirstByFromUserOrToUserOrderByCreatedAtDesc(String fromUser, String toUser);
     java.util.List<PersonalSettlement> findByTransactionId(Long transactionId);
     void deleteAllByTransactionId(Long transactionId);
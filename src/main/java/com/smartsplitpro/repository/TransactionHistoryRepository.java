@@ -1,7 +1,24 @@
 package com.smartsplitpro.repository;
 
 import com.smartsplitpro.model.TransactionHistory;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface TransactionHistoryRepository extends JpaRepository<TransactionHistory, Long> {
+    // Entries naming the user in any role (performer, payer, payee, creator, snapshot owner or counterparty)
+    @Query("select h from TransactionHistory h where h.id in"
+            + " (select p.historyId from HistoryParticipant p where p.username = :username)"
+            + " order by h.timestamp desc, h.id desc")
+    java.util.List<TransactionHistory> findByParticipant(@Param("username") String username, Pageable page);
+
+    java.util.List<TransactionHistory> findByActionAndPerformedByOrderByTimestampDescIdDesc(String action, String performedBy, Pageable page);
+
+    java.util.List<TransactionHistory> findByActionOrderByTimestampDescIdDesc(String action, Pageable page);
+
+    // Rows written before the participant index existed, in id order
+    @Query("select h from TransactionHistory h where h.id > :afterId and not exists"
+            + " (select p.id from HistoryParticipant p where p.historyId = h.id) order by h.id")
+    java.util.List<TransactionHistory> findUnindexedAfter(@Param("afterId") long afterId, Pageable page);
 }
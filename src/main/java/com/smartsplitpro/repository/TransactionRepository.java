@@ -2,10 +2,87 @@ package com.smartsplitpro.repository;
 
 import com.smartsplitpro.model.Transaction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.QueryHint;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
-    java.util.List<Transaction> findByPayerUsernameOrPayeeUsername(String payerUsername, String payeeUsername);
-    java.util.List<Transaction> findByPayerUsernameIgnoreCaseOrPayeeUsernameIgnoreCase(String payerUsername, String payeeUsername);
-    java.util.List<Transaction> findByCreatedBy(String createdBy);
-    java.util.List<Transaction> findByCreatedByIgnoreCase(String createdBy);
+    // Rows owned by a user: created by them, or paid by them for legacy rows without a creator.
+    // Expects a normalized (trimmed, lower-case) username, as stored by TransactionService.
+    // Written as a UNION ALL so each branch is served by its own index (created_by, payer_username)
+    // instead of a table scan on the OR.
+    @Query(value = "select * from ("
+            + " select * from transaction where created_by = :username"
+            + " union all"
+            + " select * from transaction where payer_username = :username and (created_by is null or created_by = '')"
+            + " ) owned order by timestamp desc nulls last, id desc", nativeQuery = true)
+    java.util.List<Transaction> findOwnedBy(@Param("username") String username);
+
+    // Keyset pagination in (timestamp desc nulls last, id desc) order; rows without a
+    // timestamp come last, so a cursor inside that block only continues by id.
+    String OWNED = "(t.createdBy = :username or ((t.createdBy is null or t.createdBy = '') and t.payerUsername = :username))";
+    String KEYSET_ORDER = " order by t.timestamp desc nulls last, t.id desc";
+    String AFTER = "(t.timestamp < :ts or (t.timestamp = :ts and t.id < :id) or t.timestamp is null)";
+    String AFTER_UNTIMED = "(t.timestamp is null and t.id < :id)";
+
+    @Query("select t from Transaction t" + KEYSET_ORDER)
+    java.util.List<Transaction> findPage(Pageable page);
+
+    @Query("select t from Transaction t where " + AFTER + KEYSET_ORDER)
+    java.util.List<Transaction> findPageAfter(@Param("ts") java.time.LocalDateTime ts, @Param("id") long id, Pageable page);
+
+    @Query("select t from Transaction t where " + AFTER_UNTIMED + KEYSET_ORDER)
+    java.util.List<Transaction> findPageAfterUntimed(@Param("id") long id, Pageable page);
+
+    @Query("select t from Transaction t where " + OWNED + KEYSET_ORDER)
+    java.util.List<Transaction> findOwnedPage(@Param("username") String username, Pageable page);
+
+    @Query("select t from Transaction t where " + OWNED + " and " + AFTER + KEYSET_ORDER)
+    java.util.List<Transaction> findOwnedPageAfter(@Param("username") String username, @Param("ts") java.time.LocalDateTime ts, @Param("id") long id, Pageable page);
+
+    @Query("select t from Transaction t where " + OWNED + " and " + AFTER_UNTIMED + KEYSET_ORDER)
+    java.util.List<Transaction> findOwnedPageAfterUntimed(@Param("username") String username, @Param("id") long id, Pageable page);
+
+    // Per-user sums for database-side balance aggregation (see BalanceAggregator). Each query
+    // returns one row per username; the payer side is credited, the payee side debited.
+    interface UserTotal {
+        String getUsername();
+        java.math.BigDecimal getTotal();
+        // lowest transaction id touching the user, to keep first-seen order
+        Long getFirstId();
+    }
+
+    // Same rows the ledger applies: the global view skips blank names, owner views only nulls
+    String BOTH_NAMED = "t.payerUsername <> '' and t.payeeUsername <> ''";
+    String BOTH_PRESENT = "t.payerUsername is not null and t.payeeUsername is not null";
+
+    @Query("select t.payerUsername as username, sum(t.amount) as total, min(t.id) as firstId"
+            + " from Transaction t where " + BOTH_NAMED + " group by t.payerUsername")
+    java.util.List<UserTotal> sumByPayer();
+
+    @Query("select t.payeeUsername as username, sum(t.amount) as total, min(t.id) as firstId"
+            + " from Transaction t where " + BOTH_NAMED + " group by t.payeeUsername")
+    java.util.List<UserTotal> sumByPayee();
+
+    @Query("select t.payerUsername as username, sum(t.amount) as total, min(t.id) as firstId"
+            + " from Transaction t where " + OWNED + " and " + BOTH_PRESENT + " group by t.payerUsername")
+    java.util.List<UserTotal> sumOwnedByPayer(@Param("username") String username);
+
+    @Query("select t.payeeUsername as username, sum(t.amount) as total, min(t.id) as firstId"
+            + " from Transaction t where " + OWNED + " and " + BOTH_PRESENT + " group by t.payeeUsername")
+    java.util.List<UserTotal> sumOwnedByPayee(@Param("username") String username);
+
+    // Cursor-backed streams for exports; must be consumed inside a transaction and closed
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "256"),
+                 @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select t from Transaction t" + KEYSET_ORDER)
+    java.util.stream.Stream<Transaction> streamAll();
+
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "256"),
+                 @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select t from Transaction t where " + OWNED + KEYSET_ORDER)
+    java.util.stream.Stream<Transaction> streamOwnedBy(@Param("username") String username);
 }
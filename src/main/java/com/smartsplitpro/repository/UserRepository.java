@@ -2,9 +2,15 @@ package com.smartsplitpro.repository;
 
 import com.smartsplitpro.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Optional<User> findByUsernameIgnoreCase(String username);
+
+    // Case-insensitive batch lookup; pass lower-case usernames
+    @Query("select u from User u where lower(u.username) in :usernames")
+    java.util.List<User> findByUsernameLowerIn(@Param("usernames") java.util.Collection<String> usernames);
 }
@@ -0,0 +1,368 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.Transaction;
+import com.smartsplitpro.model.TransactionHistory;
+import com.smartsplitpro.repository.TransactionHistoryRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Asynchronous writer for the transaction audit trail.
+ *
+ * The request thread only captures an immutable copy of the transaction and
+ * queues it once its database transaction commits (a rolled back write leaves
+ * no history, as before). A background thread drains the queue every
+ * {@code audit.flush-interval-ms}, or as soon as a full batch is waiting,
+ * builds the JSON payloads and inserts them with one {@code saveAll} per
+ * batch, which Hibernate sends as JDBC batches. The entries' participants
+ * ({@link HistoryParticipants}) are inserted in the same transaction.
+ *
+ * The queue is bounded by {@code audit.queue-capacity}; when it is full the
+ * event is written synchronously instead of being dropped. On shutdown the
+ * scheduler is stopped and whatever is still queued is written before the
+ * data source goes away. Entries that cannot be written at that point are
+ * appended to {@code audit.spill-file} and inserted on the next start.
+ */
+@Component
+public class AuditHistoryWriter {
+    private static final Logger log = LoggerFactory.getLogger(AuditHistoryWriter.class);
+
+    private final TransactionHistoryRepository historyRepository;
+    private final HistoryParticipants historyParticipants;
+    private final com.fasterxml.jackson.databind.ObjectMapper objectMapper;
+    private final java.nio.file.Path spillFile;
+    private final TransactionTemplate writeTx;
+    private final BlockingQueue<AuditEvent> queue;
+    private final int batchSize;
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    // locks rather than monitors: both are held across database / file I/O
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ReentrantLock spillLock = new ReentrantLock();
+    private volatile boolean shuttingDown = false;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong writtenInline = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+
+    public AuditHistoryWriter(TransactionHistoryRepository historyRepository,
+                              HistoryParticipants historyParticipants,
+                              PlatformTransactionManager transactionManager,
+                              com.fasterxml.jackson.databind.ObjectMapper objectMapper,
+                              @Value("${audit.queue-capacity:10000}") int queueCapacity,
+                              @Value("${audit.batch-size:100}") int batchSize,
+                              @Value("${audit.flush-interval-ms:200}") long flushIntervalMs,
+                              @Value("${audit.spill-file:./data/audit-pending.ndjson}") String spillFile,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.historyRepository = historyRepository;
+        this.historyParticipants = historyParticipants;
+        this.objectMapper = objectMapper;
+        this.spillFile = java.nio.file.Paths.get(spillFile);
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.writeTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(WorkerThreads.named("audit-history-writer", virtualThreads));
+        long interval = Math.max(10, flushIntervalMs);
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Insert entries spilled by a previous shutdown, then remove the file.
+     */
+    @org.springframework.context.event.EventListener(org.springframework.boot.context.event.ApplicationReadyEvent.class)
+    public void replaySpill() {
+        if (!java.nio.file.Files.exists(spillFile)) return;
+        try {
+            List<TransactionHistory> rows = new ArrayList<>();
+            for (String line : java.nio.file.Files.readAllLines(spillFile, java.nio.charset.StandardCharsets.UTF_8)) {
+                if (line.isBlank()) continue;
+                TransactionHistory row = objectMapper.readValue(line, TransactionHistory.class);
+                row.setId(null);
+                rows.add(row);
+            }
+            writeTx.executeWithoutResult(status -> {
+                historyRepository.saveAll(rows);
+                List<com.smartsplitpro.model.HistoryParticipant> participants = new ArrayList<>();
+                for (TransactionHistory row : rows) participants.addAll(historyParticipants.fromPayload(row));
+                historyParticipants.saveAll(participants);
+            });
+            java.nio.file.Files.delete(spillFile);
+            written.addAndGet(rows.size());
+            log.info("Replayed {} audit history entries from {}", rows.size(), spillFile);
+        } catch (Exception e) {
+            log.error("Could not replay audit history spill file {}", spillFile, e);
+        }
+    }
+
+    /**
+     * Queue a history entry for {@code tx}. Inside a database transaction the
+     * entry is only queued after commit.
+     */
+    public void record(Transaction tx, String action) {
+        if (tx == null) return;
+        String performedBy = null;
+        try {
+            org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
+            if (auth != null) performedBy = auth.getName();
+        } catch (Exception ignored) {}
+        AuditEvent event = new AuditEvent(tx, action, performedBy, OffsetDateTime.now(java.time.ZoneId.systemDefault()));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(event);
+                }
+            });
+        } else {
+            enqueue(event);
+        }
+    }
+
+    /**
+     * Write entries for {@code txs} right away, in batches, on the calling
+     * thread. Meant for bulk imports, which would overflow the queue; call it
+     * once the rows have committed.
+     */
+    public int writeAll(List<Transaction> txs, String action, String performedBy) {
+        OffsetDateTime now = OffsetDateTime.now(java.time.ZoneId.systemDefault());
+        int total = 0;
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        for (Transaction tx : txs) {
+            batch.add(new AuditEvent(tx, action, performedBy, now));
+            if (batch.size() == batchSize) {
+                total += writeBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) total += writeBatch(batch);
+        enqueued.addAndGet(txs.size());
+        return total;
+    }
+
+    private void enqueue(AuditEvent event) {
+        enqueued.incrementAndGet();
+        if (!shuttingDown && queue.offer(event)) {
+            if (queue.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+                try {
+                    flusher.execute(this::flushQuietly);
+                } catch (java.util.concurrent.RejectedExecutionException e) {
+                    flushRequested.set(false);
+                }
+            }
+            return;
+        }
+        // queue full (or closing): write through rather than lose the entry
+        writtenInline.incrementAndGet();
+        writeBatch(List.of(event));
+    }
+
+    /**
+     * Write everything queued so far. Safe to call from any thread.
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            int total = 0;
+            List<AuditEvent> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                total += writeBatch(batch);
+                batch.clear();
+            }
+            return total;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Audit history flush failed", e);
+        }
+    }
+
+    private int writeBatch(List<AuditEvent> events) {
+        return writeBatch(events, false);
+    }
+
+    private int writeBatch(List<AuditEvent> events, boolean spillFailures) {
+        List<TransactionHistory> rows = new ArrayList<>(events.size());
+        for (AuditEvent e : events) rows.add(e.toHistory(objectMapper));
+        try {
+            writeTx.executeWithoutResult(status -> {
+                historyRepository.saveAll(rows);
+                List<com.smartsplitpro.model.HistoryParticipant> participants = new ArrayList<>();
+                for (int i = 0; i < rows.size(); i++) participants.addAll(events.get(i).participants(rows.get(i).getId()));
+                historyParticipants.saveAll(participants);
+            });
+            batches.incrementAndGet();
+            written.addAndGet(rows.size());
+            return rows.size();
+        } catch (Exception batchFailure) {
+            // isolate the bad row(s) so one failure does not lose the whole batch
+            log.warn("Audit history batch of {} failed, retrying row by row: {}", rows.size(), batchFailure.getMessage());
+            int ok = 0;
+            for (AuditEvent e : events) {
+                try {
+                    TransactionHistory row = e.toHistory(objectMapper);
+                    writeTx.executeWithoutResult(status -> {
+                        historyRepository.save(row);
+                        historyParticipants.saveAll(e.participants(row.getId()));
+                    });
+                    ok++;
+                } catch (Exception rowFailure) {
+                    if (spillFailures && spill(e)) continue;
+                    failed.incrementAndGet();
+                    log.error("Dropping audit history entry {} for transaction {}", e.action, e.transactionId, rowFailure);
+                }
+            }
+            written.addAndGet(ok);
+            return ok;
+        }
+    }
+
+    private boolean spill(AuditEvent event) {
+        spillLock.lock();
+        try {
+            if (spillFile.getParent() != null) java.nio.file.Files.createDirectories(spillFile.getParent());
+            String line = objectMapper.writeValueAsString(event.toHistory(objectMapper)) + System.lineSeparator();
+            java.nio.file.Files.writeString(spillFile, line, java.nio.charset.StandardCharsets.UTF_8,
+                    java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.APPEND);
+            spilled.incrementAndGet();
+            return true;
+        } catch (Exception e) {
+            log.error("Could not spill audit history entry to {}", spillFile, e);
+            return false;
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int drained = 0;
+        flushLock.lock();
+        try {
+            List<AuditEvent> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                drained += writeBatch(batch, true);
+                batch.clear();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+        log.info("Audit history writer stopped; wrote {} queued entries on shutdown ({} spilled to {} so far)",
+                drained, spilled.get(), spillFile);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("queued", queue.size());
+        out.put("capacity", queue.size() + queue.remainingCapacity());
+        out.put("batchSize", batchSize);
+        out.put("enqueued", enqueued.get());
+        out.put("written", written.get());
+        out.put("batches", batches.get());
+        out.put("writtenInline", writtenInline.get());
+        out.put("failed", failed.get());
+        out.put("spilled", spilled.get());
+        return out;
+    }
+
+    /**
+     * Copy of the audited transaction taken on the request thread; the
+     * payload is built on the writer thread.
+     */
+    private static final class AuditEvent {
+        final Long transactionId;
+        final String payer;
+        final String payee;
+        final java.math.BigDecimal amount;
+        final String description;
+        final java.time.LocalDateTime timestamp;
+        final String createdBy;
+        final String action;
+        final String performedBy;
+        final OffsetDateTime recordedAt;
+
+        AuditEvent(Transaction tx, String action, String performedBy, OffsetDateTime recordedAt) {
+            this.transactionId = tx.getId();
+            this.payer = tx.getPayerUsername();
+            this.payee = tx.getPayeeUsername();
+            this.amount = tx.getAmount();
+            this.description = tx.getDescription();
+            this.timestamp = tx.getTimestamp();
+            this.createdBy = tx.getCreatedBy();
+            this.action = action;
+            this.performedBy = performedBy;
+            this.recordedAt = recordedAt;
+        }
+
+        List<com.smartsplitpro.model.HistoryParticipant> participants(Long historyId) {
+            List<com.smartsplitpro.model.HistoryParticipant> out = new ArrayList<>(4);
+            HistoryParticipants.add(out, historyId, performedBy, com.smartsplitpro.model.HistoryParticipant.PERFORMER);
+            HistoryParticipants.add(out, historyId, payer, com.smartsplitpro.model.HistoryParticipant.PAYER);
+            HistoryParticipants.add(out, historyId, payee, com.smartsplitpro.model.HistoryParticipant.PAYEE);
+            HistoryParticipants.add(out, historyId, createdBy, com.smartsplitpro.model.HistoryParticipant.CREATOR);
+            return out;
+        }
+
+        TransactionHistory toHistory(com.fasterxml.jackson.databind.ObjectMapper mapper) {
+            return new TransactionHistory(transactionId, action, payload(mapper), performedBy, recordedAt);
+        }
+
+        // the fields and value formats the synchronous recorder wrote, escaped by Jackson
+        String payload(com.fasterxml.jackson.databind.ObjectMapper mapper) {
+            com.fasterxml.jackson.databind.node.ObjectNode doc = mapper.createObjectNode();
+            doc.put("id", transactionId);
+            doc.put("payerUsername", payer == null ? "" : payer);
+            doc.put("payeeUsername", payee == null ? "" : payee);
+            doc.put("amount", amount == null ? java.math.BigDecimal.ZERO : amount);
+            doc.put("description", description == null ? "" : description);
+            doc.put("timestamp", timestamp == null ? null : timestamp.toString());
+            doc.put("createdBy", createdBy == null ? "" : createdBy);
+            doc.put("recordedAt", recordedAt.toString());
+            try {
+                return mapper.writeValueAsString(doc);
+            } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+                throw new java.io.UncheckedIOException("Could not build the audit payload for transaction " + transactionId, e);
+            }
+        }
+    }
+}
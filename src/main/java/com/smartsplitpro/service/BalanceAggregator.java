@@ -0,0 +1,85 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.Balance;
+import com.smartsplitpro.repository.TransactionRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Balances summed by the database instead of read from the in-memory
+ * {@link BalanceLedger}.
+ *
+ * Two GROUP BY queries return one (username, sum, first id) tuple per payer
+ * and per payee; payer sums are credited, payee sums debited and the two are
+ * merged into one {@link Balance} per user. No Transaction entity is loaded,
+ * so the persistence context stays empty however large the table is. The
+ * same rows are included as in the ledger, so the balances are identical.
+ * Users come out in the order of their lowest live transaction id, which is
+ * the ledger's order right after a build; between builds the ledger's order
+ * can drift (see {@link BalanceLedger}).
+ *
+ * Used for balance reads when {@code ledger.enabled} is off, and while the
+ * ledger has not been built yet.
+ */
+@Component
+public class BalanceAggregator {
+    private final TransactionRepository transactionRepository;
+
+    public BalanceAggregator(TransactionRepository transactionRepository) {
+        this.transactionRepository = transactionRepository;
+    }
+
+    /**
+     * Global net balances, same content as {@link BalanceLedger#balances()}.
+     */
+    public List<Balance> balances() {
+        return merge(transactionRepository.sumByPayer(), transactionRepository.sumByPayee());
+    }
+
+    /**
+     * Balances over the transactions owned by {@code owner}, same content as
+     * {@link BalanceLedger#balancesForOwner(String)}.
+     */
+    public List<Balance> balancesForOwner(String owner) {
+        String norm = UserDirectory.normalize(owner);
+        if (norm == null) return Collections.emptyList();
+        return merge(transactionRepository.sumOwnedByPayer(norm), transactionRepository.sumOwnedByPayee(norm));
+    }
+
+    private static List<Balance> merge(List<TransactionRepository.UserTotal> paid, List<TransactionRepository.UserTotal> owed) {
+        Map<String, Total> totals = new HashMap<>(Math.max(16, (paid.size() + owed.size()) * 2));
+        for (TransactionRepository.UserTotal t : paid) add(totals, t, 1);
+        for (TransactionRepository.UserTotal t : owed) add(totals, t, -1);
+
+        List<Total> ordered = new ArrayList<>(totals.values());
+        ordered.sort(Comparator.comparingLong(t -> t.firstSeen));
+        List<Balance> result = new ArrayList<>(ordered.size());
+        for (Total t : ordered) result.add(new Balance(t.username, Money.fromCents(t.cents)));
+        return result;
+    }
+
+    private static void add(Map<String, Total> totals, TransactionRepository.UserTotal row, int sign) {
+        if (row.getUsername() == null) return;
+        Total t = totals.computeIfAbsent(row.getUsername(), Total::new);
+        t.cents += sign * Money.toCents(row.getTotal());
+        // the ledger interns a row's payer before its payee
+        long firstSeen = row.getFirstId() == null ? Long.MAX_VALUE : row.getFirstId() * 2 + (sign < 0 ? 1 : 0);
+        if (firstSeen < t.firstSeen) t.firstSeen = firstSeen;
+    }
+
+    private static final class Total {
+        final String username;
+        long cents;
+        long firstSeen = Long.MAX_VALUE;
+
+        Total(String username) {
+            this.username = username;
+        }
+    }
+}
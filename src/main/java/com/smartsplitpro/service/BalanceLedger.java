@@ -0,0 +1,874 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.Balance;
+import com.smartsplitpro.model.LedgerCheckpoint;
+import com.smartsplitpro.model.LedgerCheckpointEntry;
+import com.smartsplitpro.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory balance ledger.
+ *
+ * The ledger is built once when the application starts, either from the
+ * transactions table or from the newest {@link LedgerCheckpoints checkpoint}
+ * plus the transactions added after it, and is then updated in place
+ * whenever a transaction is added or deleted, so balance reads no longer have
+ * to scan the whole table.
+ *
+ * Balances are held as cents in {@link BalanceTable}s. Two views are maintained:
+ * - global net balances per username (what {@code /api/balances} returns)
+ * - per-owner balances, where the owner of a transaction is its creator or,
+ *   for legacy rows without a creator, its payer (what {@code /api/balances/me}
+ *   returns; this mirrors the filtering done by {@code listByUser})
+ *
+ * Every username carries a reference count of the transactions touching it so
+ * that a user disappears from a view once all of their transactions are gone,
+ * exactly as a full recompute would behave. The global view also counts the
+ * transactions between every payer/payee pair; snapshots use those pairs to
+ * split users into connected components (independent friend groups).
+ *
+ * Users are listed in the order the ledger first saw them, not in the
+ * hash order the original per-request computation returned. A build starts
+ * from fresh tables, so right after one the order is that of each user's
+ * lowest live transaction id (payer before payee) and users without live
+ * transactions are gone. Between builds a user keeps its position after the
+ * transaction that placed it is deleted, and a user whose first row commits
+ * late is appended; clients must not rely on the order.
+ *
+ * A version number is bumped on every change so derived data (such as the
+ * settlement plan) can be cached against it, and a {@link LedgerChangedEvent}
+ * naming the touched users is published after every change.
+ *
+ * Builds (rebuild and checkpoint restore) scan the table into fresh tables
+ * without holding the ledger lock and swap them in at the end. Changes that
+ * commit meanwhile are queued and reconciled with the scan: a row the scan
+ * already read is not applied a second time, and a delete of a row it never
+ * saw is not subtracted. Rows written by transactions that are still open
+ * when a build finishes are tracked the same way until their commit arrives.
+ *
+ * State is guarded by {@link ReentrantLock}s rather than monitors: readers
+ * wait for a running build, and a virtual thread that blocks inside
+ * {@code synchronized} pins its carrier thread.
+ */
+@Component
+public class BalanceLedger {
+    private static final Logger log = LoggerFactory.getLogger(BalanceLedger.class);
+
+    private final TransactionScanner transactionScanner;
+    private final org.springframework.context.ApplicationEventPublisher events;
+
+    // replaced as a whole when a build finishes
+    private BalanceTable global = new BalanceTable();
+    private Map<String, BalanceTable> owners = new HashMap<>();
+    // global ids (lower id in the high half) -> live transactions between the two users
+    private Map<Long, Integer> pairs = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    // serialises builds; held across the table scan, which the ledger lock never is
+    private final ReentrantLock buildLock = new ReentrantLock();
+    // changes applied while a build scans, reconciled with the scan when it finishes; null otherwise
+    private List<Change> pending;
+    // id -> sign of rows changed by transactions whose commit has not been applied yet
+    private final Map<Long, Integer> inFlight = new java.util.concurrent.ConcurrentHashMap<>();
+    // in-flight changes the last build's scan already reflects; their apply is skipped
+    private final java.util.Set<Long> alreadyBuilt = new java.util.HashSet<>();
+    // volatile so isReady() can be asked without waiting for a rebuild to finish
+    private volatile boolean ready = false;
+    private final boolean enabled;
+    private volatile long version = 0;
+    // rows applied (including ones the views skip) and the highest id among them, for checkpoints
+    private long transactionCount;
+    private long lastTransactionId;
+    // highest id covered by a checkpoint captured or restored; a row at or below it applied
+    // later (a delete, or an insert that committed late) makes those checkpoints stale
+    private long coveredThrough;
+    private long lateWrites;
+    private volatile java.util.function.LongConsumer lateWriteListener;
+    // snapshot of the current version, reused until the next change
+    private Snapshot lastSnapshot;
+
+    public BalanceLedger(TransactionScanner transactionScanner, org.springframework.context.ApplicationEventPublisher events) {
+        this(transactionScanner, events, true);
+    }
+
+    /**
+     * With {@code ledger.enabled} off the ledger is not built at startup and
+     * balance reads are summed by the database ({@link BalanceAggregator});
+     * settlement plans still need it and build it on first use.
+     */
+    @org.springframework.beans.factory.annotation.Autowired
+    public BalanceLedger(TransactionScanner transactionScanner, org.springframework.context.ApplicationEventPublisher events,
+                         @org.springframework.beans.factory.annotation.Value("${ledger.enabled:true}") boolean enabled) {
+        this.transactionScanner = transactionScanner;
+        this.events = events;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Whether balance reads should be served from the ledger.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Rebuild both views from the database. Rows are streamed through the
+     * {@link TransactionScanner}, so the rebuild never holds more than the
+     * balance tables themselves, and the current state keeps serving reads
+     * until the new one is swapped in.
+     */
+    public void rebuild() {
+        build(null, List.of());
+    }
+
+    /**
+     * Load the state saved in {@code checkpoint} and replay the transactions
+     * added after it, instead of reading the whole table. Returns the number
+     * of replayed transactions. On failure the ledger is left as it was (an
+     * unbuilt ledger is rebuilt on the next read) and the exception is
+     * rethrown.
+     */
+    public long restore(LedgerCheckpoint checkpoint, List<LedgerCheckpointEntry> entries) {
+        return build(checkpoint, entries);
+    }
+
+    private long build(LedgerCheckpoint checkpoint, List<LedgerCheckpointEntry> entries) {
+        buildLock.lock();
+        try {
+            long started = System.nanoTime();
+            lock.lock();
+            try {
+                pending = new ArrayList<>();
+            } finally {
+                lock.unlock();
+            }
+            Build next = new Build(checkpoint == null ? 0 : checkpoint.getLastTransactionId());
+            long scanned;
+            try {
+                if (checkpoint != null) {
+                    next.load(entries);
+                    next.transactionCount = checkpoint.getTransactions();
+                    next.lastTransactionId = checkpoint.getLastTransactionId();
+                }
+                scanned = transactionScanner.forEachTransaction(next.afterId, next::scan);
+            } catch (RuntimeException e) {
+                finishFailed();
+                throw e;
+            }
+            finish(next);
+            if (checkpoint == null) {
+                log.info("Balance ledger built from {} transactions ({} users) in {} ms",
+                        scanned, next.global.size(), (System.nanoTime() - started) / 1_000_000);
+            } else {
+                log.info("Balance ledger restored from checkpoint {} ({} transactions) plus {} newer transactions ({} users) in {} ms",
+                        checkpoint.getId(), checkpoint.getTransactions(), scanned, next.global.size(), (System.nanoTime() - started) / 1_000_000);
+            }
+            return scanned;
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    // swap in the built state, then apply the queued changes its scan did not see
+    private void finish(Build next) {
+        long built;
+        long lowestLate = Long.MAX_VALUE;
+        lock.lock();
+        try {
+            global = next.global;
+            owners = next.owners;
+            pairs = next.pairs;
+            transactionCount = next.transactionCount;
+            lastTransactionId = next.lastTransactionId;
+            coveredThrough = Math.max(coveredThrough, next.afterId);
+            for (Change c : pending) {
+                if (next.reflects(c.tx.getId(), c.sign)) continue;
+                apply(c.tx, c.sign);
+                if (c.tx.getId() != null && c.tx.getId() <= coveredThrough) lowestLate = Math.min(lowestLate, c.tx.getId());
+            }
+            pending = null;
+            alreadyBuilt.clear();
+            for (Map.Entry<Long, Integer> e : inFlight.entrySet()) {
+                if (next.reflects(e.getKey(), e.getValue())) alreadyBuilt.add(e.getKey());
+            }
+            ready = true;
+            built = ++version;
+        } finally {
+            lock.unlock();
+        }
+        notifyLateWrite(lowestLate);
+        events.publishEvent(new LedgerChangedEvent(built, null));
+    }
+
+    // keep the current state and catch it up with the changes queued during the scan
+    private void finishFailed() {
+        long applied = -1;
+        lock.lock();
+        try {
+            List<Change> queued = pending;
+            pending = null;
+            if (!ready || queued.isEmpty()) return;
+            for (Change c : queued) apply(c.tx, c.sign);
+            applied = ++version;
+        } finally {
+            lock.unlock();
+        }
+        if (applied >= 0) events.publishEvent(new LedgerChangedEvent(applied, null));
+    }
+
+    /**
+     * Copy of the current state as an unsaved checkpoint and its entries, or
+     * null while the ledger is not built.
+     */
+    public CheckpointImage capture(String reason) {
+        lock.lock();
+        try {
+            // while a build runs the current state may lack changes queued for it
+            if (!ready || pending != null) return null;
+            List<LedgerCheckpointEntry> entries = new ArrayList<>(global.size() + pairs.size());
+            for (int id = 0; id < global.idCount(); id++) {
+                if (!global.isLive(id)) continue;
+                entries.add(new LedgerCheckpointEntry(LedgerCheckpointEntry.Kind.GLOBAL, null, global.name(id), null, global.cents(id), global.refs(id)));
+            }
+            for (Map.Entry<Long, Integer> e : pairs.entrySet()) {
+                entries.add(new LedgerCheckpointEntry(LedgerCheckpointEntry.Kind.PAIR, null,
+                        global.name(pairFirst(e.getKey())), global.name(pairSecond(e.getKey())), 0, e.getValue()));
+            }
+            for (Map.Entry<String, BalanceTable> e : owners.entrySet()) {
+                BalanceTable view = e.getValue();
+                for (int id = 0; id < view.idCount(); id++) {
+                    if (!view.isLive(id)) continue;
+                    entries.add(new LedgerCheckpointEntry(LedgerCheckpointEntry.Kind.OWNER, e.getKey(), view.name(id), null, view.cents(id), view.refs(id)));
+                }
+            }
+            LedgerCheckpoint checkpoint = new LedgerCheckpoint(lastTransactionId, transactionCount, global.size(), entries.size(),
+                    reason, java.time.OffsetDateTime.now());
+            coveredThrough = Math.max(coveredThrough, lastTransactionId);
+            return new CheckpointImage(version, lateWrites, checkpoint, entries);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of rows applied so far at or below the highest checkpointed id;
+     * compare with {@link CheckpointImage#getLateWrites()} to tell whether a
+     * captured checkpoint went stale.
+     */
+    public long lateWrites() {
+        lock.lock();
+        try {
+            return lateWrites;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called with the lowest id after a change applies rows at or below the
+     * highest checkpointed id, outside the ledger lock.
+     */
+    public void setLateWriteListener(java.util.function.LongConsumer listener) {
+        this.lateWriteListener = listener;
+    }
+
+    private void notifyLateWrite(long lowestId) {
+        java.util.function.LongConsumer listener = lateWriteListener;
+        if (listener == null || lowestId == Long.MAX_VALUE) return;
+        try {
+            listener.accept(lowestId);
+        } catch (Exception e) {
+            log.warn("Late write listener failed for transaction {}: {}", lowestId, e.getMessage());
+        }
+    }
+
+    /**
+     * Register a newly persisted transaction. When called inside a database
+     * transaction the update is deferred until commit so a rollback never
+     * leaks into the ledger.
+     */
+    public void record(Transaction tx) {
+        afterCommit(List.of(tx), 1, () -> applyAndPublish(tx, 1));
+    }
+
+    /**
+     * Register a batch of newly persisted transactions (deferred until
+     * commit) as one change: one version bump and one event naming every
+     * touched user.
+     */
+    public void recordAll(List<Transaction> txs) {
+        if (txs.isEmpty()) return;
+        List<Transaction> batch = new ArrayList<>(txs);
+        afterCommit(batch, 1, () -> applyAllAndPublish(batch));
+    }
+
+    /**
+     * Remove a deleted transaction from the ledger (deferred until commit).
+     */
+    public void revert(Transaction tx) {
+        afterCommit(List.of(tx), -1, () -> applyAndPublish(tx, -1));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Sizes for the metrics gauges; never trigger a build
+    public int userCount() {
+        lock.lock();
+        try {
+            return global.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int pairCount() {
+        lock.lock();
+        try {
+            return pairs.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Current ledger version; changes whenever a transaction is applied,
+     * reverted or the ledger is rebuilt.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Global balances together with the version they were read at.
+     */
+    public Snapshot snapshot() {
+        ensureReady();
+        lock.lock();
+        try {
+            return currentSnapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Snapshot currentSnapshot() {
+        if (lastSnapshot == null || lastSnapshot.getVersion() != version) {
+            lastSnapshot = new Snapshot(version, global, pairs);
+        }
+        return lastSnapshot;
+    }
+
+    /**
+     * Global net balances, one fresh {@link Balance} per user. Callers may
+     * mutate the returned objects (the settlement matcher does).
+     */
+    public List<Balance> balances() {
+        ensureReady();
+        lock.lock();
+        try {
+            return toBalances(global);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Balances restricted to the transactions owned by {@code owner}.
+     */
+    public List<Balance> balancesForOwner(String owner) {
+        ensureReady();
+        lock.lock();
+        try {
+            String norm = normalize(owner);
+            if (norm == null) return Collections.emptyList();
+            BalanceTable view = owners.get(norm);
+            return view == null ? Collections.emptyList() : toBalances(view);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The current snapshot together with {@code owner}'s balances, read under
+     * one lock so both reflect the same version.
+     */
+    public OwnerView view(String owner) {
+        ensureReady();
+        lock.lock();
+        try {
+            Snapshot snapshot = currentSnapshot();
+            String norm = normalize(owner);
+            BalanceTable view = norm == null ? null : owners.get(norm);
+            return new OwnerView(snapshot, view == null ? Collections.emptyList() : toBalances(view));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Compare the incrementally maintained state with a full recompute over
+     * the transactions table, streamed like a rebuild. Returns a report with
+     * any mismatching usernames.
+     */
+    public Map<String, Object> verify() {
+        BalanceTable expectedGlobal = new BalanceTable();
+        Map<String, BalanceTable> expectedOwners = new HashMap<>();
+        Map<Long, Integer> expectedPairs = new HashMap<>();
+        long scanned = transactionScanner.forEachTransaction(tx -> apply(tx, 1, expectedGlobal, expectedOwners, expectedPairs));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        ensureReady();
+        lock.lock();
+        try {
+            List<String> globalMismatches = diff(expectedGlobal, global);
+            List<String> ownerMismatches = new ArrayList<>();
+            java.util.Set<String> ownerNames = new java.util.TreeSet<>(expectedOwners.keySet());
+            ownerNames.addAll(owners.keySet());
+            for (String owner : ownerNames) {
+                BalanceTable expected = expectedOwners.getOrDefault(owner, new BalanceTable());
+                BalanceTable actual = owners.getOrDefault(owner, new BalanceTable());
+                for (String user : diff(expected, actual)) {
+                    ownerMismatches.add(owner + ":" + user);
+                }
+            }
+            List<String> pairMismatches = diffPairs(expectedGlobal, expectedPairs, global, pairs);
+            report.put("consistent", globalMismatches.isEmpty() && ownerMismatches.isEmpty() && pairMismatches.isEmpty());
+            report.put("transactions", scanned);
+            report.put("users", global.size());
+            report.put("pairs", pairs.size());
+            report.put("globalMismatches", globalMismatches);
+            report.put("ownerMismatches", ownerMismatches);
+            report.put("pairMismatches", pairMismatches);
+        } finally {
+            lock.unlock();
+        }
+        return report;
+    }
+
+    // never called with the ledger lock held: a build takes it to swap in its state
+    private void ensureReady() {
+        if (ready && !buildLock.isLocked()) return;
+        // wait for a running build, or build the ledger on first use
+        buildLock.lock();
+        try {
+            if (!ready) rebuild();
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    private void applyAndPublish(Transaction tx, int sign) {
+        long applied;
+        boolean late;
+        lock.lock();
+        try {
+            if (tx.getId() != null) inFlight.remove(tx.getId());
+            if (pending != null) {
+                pending.add(new Change(tx, sign));
+                return;
+            }
+            // an unbuilt ledger will pick the row up when it is first read
+            if (!ready || tx.getId() != null && alreadyBuilt.remove(tx.getId())) return;
+            apply(tx, sign);
+            applied = ++version;
+            late = tx.getId() != null && tx.getId() <= coveredThrough;
+        } finally {
+            lock.unlock();
+        }
+        if (late) notifyLateWrite(tx.getId());
+        java.util.Set<String> touched = new java.util.HashSet<>();
+        if (tx.getPayerUsername() != null) touched.add(tx.getPayerUsername());
+        if (tx.getPayeeUsername() != null) touched.add(tx.getPayeeUsername());
+        String owner = ownerOf(tx);
+        if (owner != null) touched.add(owner);
+        events.publishEvent(new LedgerChangedEvent(applied, touched,
+                tx.getPayerUsername(), tx.getPayeeUsername(), sign * Money.toCents(tx.getAmount())));
+    }
+
+    private void applyAllAndPublish(List<Transaction> txs) {
+        long applied;
+        long lowestLate = Long.MAX_VALUE;
+        List<Transaction> unbuilt = new ArrayList<>(txs.size());
+        lock.lock();
+        try {
+            for (Transaction tx : txs) {
+                if (tx.getId() != null) inFlight.remove(tx.getId());
+            }
+            if (pending != null) {
+                for (Transaction tx : txs) pending.add(new Change(tx, 1));
+                return;
+            }
+            if (!ready) return;
+            for (Transaction tx : txs) {
+                if (tx.getId() != null && alreadyBuilt.remove(tx.getId())) continue;
+                apply(tx, 1);
+                if (tx.getId() != null && tx.getId() <= coveredThrough) lowestLate = Math.min(lowestLate, tx.getId());
+            }
+            applied = ++version;
+        } finally {
+            lock.unlock();
+        }
+        notifyLateWrite(lowestLate);
+        java.util.Set<String> touched = new java.util.HashSet<>();
+        for (Transaction tx : txs) {
+            if (tx.getPayerUsername() != null) touched.add(tx.getPayerUsername());
+            if (tx.getPayeeUsername() != null) touched.add(tx.getPayeeUsername());
+            String owner = ownerOf(tx);
+            if (owner != null) touched.add(owner);
+        }
+        events.publishEvent(new LedgerChangedEvent(applied, touched));
+    }
+
+    private void apply(Transaction tx, int sign) {
+        if (tx == null) return;
+        apply(tx, sign, global, owners, pairs);
+        // every row counts, even one the views skip
+        transactionCount += sign;
+        if (tx.getId() == null) return;
+        if (sign > 0 && tx.getId() > lastTransactionId) lastTransactionId = tx.getId();
+        if (tx.getId() <= coveredThrough) lateWrites++;
+    }
+
+    private static void apply(Transaction tx, int sign, BalanceTable global, Map<String, BalanceTable> owners, Map<Long, Integer> pairs) {
+        if (tx == null) return;
+        String payer = tx.getPayerUsername();
+        String payee = tx.getPayeeUsername();
+        if (payer == null || payee == null) return;
+        long cents = sign * Money.toCents(tx.getAmount());
+
+        // payer paid amount; payee owes that amount
+        if (!payer.isBlank() && !payee.isBlank()) {
+            int from = global.intern(payer);
+            int to = global.intern(payee);
+            global.add(from, cents, sign);
+            global.add(to, -cents, sign);
+            if (from != to) {
+                pairs.merge(pairKey(from, to), sign, (a, b) -> a + b == 0 ? null : a + b);
+            }
+        }
+
+        String owner = ownerOf(tx);
+        if (owner != null) {
+            BalanceTable view = owners.computeIfAbsent(owner, k -> new BalanceTable());
+            view.add(payer, cents, sign);
+            view.add(payee, -cents, sign);
+            if (view.size() == 0) owners.remove(owner);
+        }
+    }
+
+    /**
+     * The user whose personal view a transaction belongs to: its creator, or
+     * the payer for rows recorded before creators were tracked.
+     */
+    static String ownerOf(Transaction tx) {
+        String creator = normalize(tx.getCreatedBy());
+        if (creator != null) return creator;
+        return normalize(tx.getPayerUsername());
+    }
+
+    private static String normalize(String username) {
+        if (username == null) return null;
+        String norm = username.trim().toLowerCase();
+        return norm.isEmpty() ? null : norm;
+    }
+
+    private void afterCommit(List<Transaction> txs, int sign, Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // a build finishing before the commit is applied must know whether its scan saw these rows
+            for (Transaction tx : txs) {
+                if (tx.getId() != null) inFlight.put(tx.getId(), sign);
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) forget(txs);
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void forget(List<Transaction> txs) {
+        lock.lock();
+        try {
+            for (Transaction tx : txs) {
+                if (tx.getId() == null) continue;
+                inFlight.remove(tx.getId());
+                alreadyBuilt.remove(tx.getId());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long pairKey(int a, int b) {
+        int lo = Math.min(a, b);
+        int hi = Math.max(a, b);
+        return ((long) lo << 32) | hi;
+    }
+
+    private static int pairFirst(long key) { return (int) (key >>> 32); }
+    private static int pairSecond(long key) { return (int) key; }
+
+    private static List<String> diffPairs(BalanceTable expectedTable, Map<Long, Integer> expected,
+                                          BalanceTable actualTable, Map<Long, Integer> actual) {
+        Map<String, Integer> want = pairNames(expectedTable, expected);
+        Map<String, Integer> have = pairNames(actualTable, actual);
+        java.util.Set<String> mismatches = new java.util.TreeSet<>();
+        for (Map.Entry<String, Integer> e : want.entrySet()) {
+            if (!e.getValue().equals(have.get(e.getKey()))) mismatches.add(e.getKey());
+        }
+        for (String key : have.keySet()) {
+            if (!want.containsKey(key)) mismatches.add(key);
+        }
+        return new ArrayList<>(mismatches);
+    }
+
+    private static Map<String, Integer> pairNames(BalanceTable table, Map<Long, Integer> pairs) {
+        Map<String, Integer> out = new HashMap<>();
+        for (Map.Entry<Long, Integer> e : pairs.entrySet()) {
+            String a = table.name(pairFirst(e.getKey()));
+            String b = table.name(pairSecond(e.getKey()));
+            out.put(a.compareTo(b) < 0 ? a + "|" + b : b + "|" + a, e.getValue());
+        }
+        return out;
+    }
+
+    private static List<Balance> toBalances(BalanceTable table) {
+        List<Balance> result = new ArrayList<>(table.size());
+        for (int id = 0; id < table.idCount(); id++) {
+            if (table.isLive(id)) result.add(new Balance(table.name(id), Money.fromCents(table.cents(id))));
+        }
+        return result;
+    }
+
+    private static List<String> diff(BalanceTable expected, BalanceTable actual) {
+        java.util.Set<String> mismatches = new java.util.TreeSet<>();
+        for (int id = 0; id < expected.idCount(); id++) {
+            if (!expected.isLive(id)) continue;
+            int other = actual.find(expected.name(id));
+            if (other < 0 || !actual.isLive(other) || actual.cents(other) != expected.cents(id)) mismatches.add(expected.name(id));
+        }
+        for (int id = 0; id < actual.idCount(); id++) {
+            if (!actual.isLive(id)) continue;
+            int other = expected.find(actual.name(id));
+            if (other < 0 || !expected.isLive(other)) mismatches.add(actual.name(id));
+        }
+        return new ArrayList<>(mismatches);
+    }
+
+    private static final class Change {
+        final Transaction tx;
+        final int sign;
+
+        Change(Transaction tx, int sign) {
+            this.tx = tx;
+            this.sign = sign;
+        }
+    }
+
+    /**
+     * State being built by a rebuild or restore: the checkpoint's entries (if
+     * any) plus every row above {@code afterId}, and which of those rows the
+     * scan read.
+     */
+    private static final class Build {
+        final long afterId;
+        final BalanceTable global = new BalanceTable();
+        final Map<String, BalanceTable> owners = new HashMap<>();
+        final Map<Long, Integer> pairs = new HashMap<>();
+        // indexed by id - afterId - 1
+        final java.util.BitSet scanned = new java.util.BitSet();
+        final java.util.Set<Long> scannedBeyondBits = new java.util.HashSet<>();
+        long transactionCount;
+        long lastTransactionId;
+
+        Build(long afterId) {
+            this.afterId = afterId;
+        }
+
+        void scan(Transaction tx) {
+            apply(tx, 1, global, owners, pairs);
+            transactionCount++;
+            if (tx.getId() == null) return;
+            lastTransactionId = Math.max(lastTransactionId, tx.getId());
+            long offset = tx.getId() - afterId - 1;
+            if (offset < Integer.MAX_VALUE) scanned.set((int) offset);
+            else scannedBeyondBits.add(tx.getId());
+        }
+
+        /**
+         * Whether this state already holds the effect of a change to row
+         * {@code id} committed during or after the scan. Rows at or below a
+         * restored checkpoint were never scanned: such an insert committed
+         * late and a delete removes a row the checkpoint still holds.
+         */
+        boolean reflects(Long id, int sign) {
+            if (id == null || id <= afterId) return false;
+            long offset = id - afterId - 1;
+            boolean read = offset < Integer.MAX_VALUE ? scanned.get((int) offset) : scannedBeyondBits.contains(id);
+            return sign > 0 ? read : !read;
+        }
+
+        // entries come in the order capture() wrote them: users before the pairs that refer to them
+        void load(List<LedgerCheckpointEntry> entries) {
+            for (LedgerCheckpointEntry e : entries) {
+                switch (e.getKind()) {
+                    case GLOBAL -> global.add(global.intern(e.getUsername()), e.getCents(), e.getRefs());
+                    case OWNER -> owners.computeIfAbsent(e.getOwner(), k -> new BalanceTable()).add(e.getUsername(), e.getCents(), e.getRefs());
+                    case PAIR -> {
+                        int a = global.find(e.getUsername());
+                        int b = global.find(e.getCounterparty());
+                        if (a < 0 || b < 0) throw new IllegalStateException("checkpoint pair " + e.getUsername() + "|" + e.getCounterparty() + " names an unknown user");
+                        pairs.put(pairKey(a, b), e.getRefs());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * State captured by {@link #capture(String)}: an unsaved checkpoint
+     * header, its entries, the ledger version they reflect and the late write
+     * count at that moment (see {@link #lateWrites()}).
+     */
+    public static class CheckpointImage {
+        private final long version;
+        private final long lateWrites;
+        private final LedgerCheckpoint checkpoint;
+        private final List<LedgerCheckpointEntry> entries;
+
+        CheckpointImage(long version, long lateWrites, LedgerCheckpoint checkpoint, List<LedgerCheckpointEntry> entries) {
+            this.version = version;
+            this.lateWrites = lateWrites;
+            this.checkpoint = checkpoint;
+            this.entries = entries;
+        }
+
+        public long getVersion() { return version; }
+        public long getLateWrites() { return lateWrites; }
+        public LedgerCheckpoint getCheckpoint() { return checkpoint; }
+        public List<LedgerCheckpointEntry> getEntries() { return entries; }
+    }
+
+    /**
+     * A snapshot together with one owner's balances at the same version.
+     */
+    public static class OwnerView {
+        private final Snapshot snapshot;
+        private final List<Balance> ownerBalances;
+
+        OwnerView(Snapshot snapshot, List<Balance> ownerBalances) {
+            this.snapshot = snapshot;
+            this.ownerBalances = ownerBalances;
+        }
+
+        public Snapshot getSnapshot() { return snapshot; }
+        public List<Balance> getOwnerBalances() { return ownerBalances; }
+        public long getVersion() { return snapshot.getVersion(); }
+    }
+
+    /**
+     * Immutable view of the global balances at a given ledger version, as
+     * parallel arrays of usernames and cents in first-seen order, plus the
+     * connected component of every user (numbered in first-seen order).
+     */
+    public static class Snapshot {
+        private final long version;
+        private final String[] names;
+        private final long[] cents;
+        private final int[] components;
+        private final int componentCount;
+
+        Snapshot(long version, BalanceTable table, Map<Long, Integer> pairs) {
+            this.version = version;
+            this.names = new String[table.size()];
+            this.cents = new long[table.size()];
+            this.components = new int[table.size()];
+
+            UnionFind sets = new UnionFind(table.idCount());
+            for (Long key : pairs.keySet()) {
+                sets.union(pairFirst(key), pairSecond(key));
+            }
+            int[] componentOfRoot = new int[table.idCount()];
+            java.util.Arrays.fill(componentOfRoot, -1);
+            int n = 0;
+            int count = 0;
+            for (int id = 0; id < table.idCount(); id++) {
+                if (!table.isLive(id)) continue;
+                int root = sets.find(id);
+                if (componentOfRoot[root] < 0) componentOfRoot[root] = count++;
+                names[n] = table.name(id);
+                cents[n] = table.cents(id);
+                components[n] = componentOfRoot[root];
+                n++;
+            }
+            this.componentCount = count;
+        }
+
+        public long getVersion() { return version; }
+        public int size() { return names.length; }
+        public String[] getNames() { return names; }
+        public long[] getCents() { return cents; }
+
+        /**
+         * Component number ({@code 0 .. getComponentCount() - 1}) of each entry.
+         * Users only ever trade within their component, so each component's
+         * balances sum to zero and can be settled on its own.
+         */
+        public int[] getComponents() { return components; }
+        public int getComponentCount() { return componentCount; }
+
+        // name -> entry index and component -> member names, built on first use
+        private Map<String, Integer> indexByName;
+        private List<List<String>> members;
+
+        /**
+         * Usernames in the same component as {@code name} (including it), or
+         * an empty list if the user has no live transactions.
+         */
+        public synchronized List<String> componentMembers(String name) {
+            if (indexByName == null) {
+                indexByName = new HashMap<>(names.length * 2);
+                members = new ArrayList<>(componentCount);
+                for (int c = 0; c < componentCount; c++) members.add(new ArrayList<>());
+                for (int i = 0; i < names.length; i++) {
+                    indexByName.put(names[i], i);
+                    members.get(components[i]).add(names[i]);
+                }
+            }
+            Integer i = indexByName.get(name);
+            return i == null ? Collections.emptyList() : Collections.unmodifiableList(members.get(components[i]));
+        }
+
+        /**
+         * Materialise the snapshot as fresh {@link Balance} objects.
+         */
+        public List<Balance> getBalances() {
+            List<Balance> result = new ArrayList<>(names.length);
+            for (int i = 0; i < names.length; i++) {
+                result.add(new Balance(names[i], Money.fromCents(cents[i])));
+            }
+            return result;
+        }
+    }
+}
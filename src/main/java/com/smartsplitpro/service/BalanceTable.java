@@ -0,0 +1,153 @@
+package com.smartsplitpro.service;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing balance table specialised for username -> cents.
+ *
+ * Each distinct username is interned once and assigned a dense int id in
+ * first-seen order. Balances and reference counts live in primitive arrays
+ * indexed by that id, so once a username is known, updating its balance does
+ * not allocate. Lookups use linear probing over an {@code int[]} of ids keyed
+ * by the (cached) {@link String#hashCode()}.
+ *
+ * A username whose reference count drops to zero stays interned (its id is
+ * kept) but is skipped when iterating live entries. Such ids are only
+ * released by {@link #clear()} or by building a new table, as the ledger does
+ * on every rebuild.
+ *
+ * Not thread-safe; callers synchronise.
+ */
+public final class BalanceTable {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private String[] names;
+    private int[] hashes;
+    private long[] cents;
+    private int[] refs;
+    private int size;   // ids handed out
+    private int live;   // ids with refs > 0
+
+    // slot -> id + 1, 0 marks an empty slot; kept at most half full
+    private int[] slots;
+    private int mask;
+
+    public BalanceTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public BalanceTable(int expectedUsers) {
+        int cap = Math.max(DEFAULT_CAPACITY, Integer.highestOneBit(Math.max(1, expectedUsers) - 1) << 1);
+        names = new String[cap];
+        hashes = new int[cap];
+        cents = new long[cap];
+        refs = new int[cap];
+        slots = new int[cap * 2];
+        mask = slots.length - 1;
+    }
+
+    /**
+     * Id of {@code name}, or -1 if it has never been interned.
+     */
+    public int find(String name) {
+        int h = mix(name.hashCode());
+        for (int slot = h & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0) return -1;
+            int id = entry - 1;
+            if (hashes[id] == h && names[id].equals(name)) return id;
+        }
+    }
+
+    /**
+     * Id of {@code name}, interning it with a zero balance if needed.
+     */
+    public int intern(String name) {
+        int h = mix(name.hashCode());
+        int slot = h & mask;
+        for (; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0) break;
+            int id = entry - 1;
+            if (hashes[id] == h && names[id].equals(name)) return id;
+        }
+        if (size == names.length) {
+            grow();
+            return intern(name);
+        }
+        int id = size++;
+        names[id] = name;
+        hashes[id] = h;
+        slots[slot] = id + 1;
+        return id;
+    }
+
+    /**
+     * Add {@code delta} cents and {@code refDelta} references to {@code id}.
+     * A balance is reset to zero once its last reference is removed.
+     */
+    public void add(int id, long delta, int refDelta) {
+        int before = refs[id];
+        int after = before + refDelta;
+        if (after <= 0) {
+            refs[id] = 0;
+            cents[id] = 0;
+            if (before > 0) live--;
+            return;
+        }
+        if (before <= 0) live++;
+        refs[id] = after;
+        cents[id] = Math.addExact(cents[id], delta);
+    }
+
+    public void add(String name, long delta, int refDelta) {
+        add(intern(name), delta, refDelta);
+    }
+
+    public String name(int id) { return names[id]; }
+    public long cents(int id) { return cents[id]; }
+    public int refs(int id) { return refs[id]; }
+    public boolean isLive(int id) { return refs[id] > 0; }
+
+    /**
+     * Number of ids handed out; iterate {@code 0 .. idCount() - 1} and skip
+     * entries that are not {@link #isLive(int) live}.
+     */
+    public int idCount() { return size; }
+
+    /**
+     * Number of usernames with at least one reference.
+     */
+    public int size() { return live; }
+
+    public void clear() {
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(hashes, 0, size, 0);
+        Arrays.fill(cents, 0, size, 0L);
+        Arrays.fill(refs, 0, size, 0);
+        Arrays.fill(slots, 0);
+        size = 0;
+        live = 0;
+    }
+
+    private void grow() {
+        int cap = names.length * 2;
+        names = Arrays.copyOf(names, cap);
+        hashes = Arrays.copyOf(hashes, cap);
+        cents = Arrays.copyOf(cents, cap);
+        refs = Arrays.copyOf(refs, cap);
+        slots = new int[cap * 2];
+        mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = id + 1;
+        }
+    }
+
+    // Spread String hash codes so sequential names do not cluster under linear probing
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
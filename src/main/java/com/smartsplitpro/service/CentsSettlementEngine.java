@@ -0,0 +1,109 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.Balance;
+import com.smartsplitpro.model.Settlement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Greedy settlement matcher working on fixed-point cents in primitive arrays.
+ *
+ * Produces exactly the same transfers, in the same order, as the original
+ * {@code BigDecimal} matcher: creditors sorted descending and debtors sorted
+ * ascending with the same last-element-pivot quick sort, then the largest
+ * creditor is repeatedly matched with the largest debtor. Amounts are only
+ * converted back to {@code BigDecimal} when the resulting {@link Settlement}s
+ * are built.
+ */
+public final class CentsSettlementEngine {
+
+    /**
+     * Convenience entry point for callers holding {@link Balance} objects.
+     */
+    public List<Settlement> settle(List<Balance> balances) {
+        int n = balances.size();
+        String[] names = new String[n];
+        long[] cents = new long[n];
+        for (int i = 0; i < n; i++) {
+            Balance b = balances.get(i);
+            names[i] = b.getUsername();
+            cents[i] = Money.toCents(b.getBalance());
+        }
+        return settle(names, cents, n);
+    }
+
+    /**
+     * Settle the first {@code count} entries of {@code names}/{@code cents}.
+     * The arrays are not modified.
+     */
+    public List<Settlement> settle(String[] names, long[] cents, int count) {
+        // Separate creditors and debtors, keeping input order like the original lists
+        int[] pos = new int[count];
+        int[] neg = new int[count];
+        int p = 0, q = 0;
+        for (int i = 0; i < count; i++) {
+            if (cents[i] > 0) pos[p++] = i;
+            else if (cents[i] < 0) neg[q++] = i;
+        }
+
+        long[] posAmt = new long[p];
+        long[] negAmt = new long[q];
+        for (int i = 0; i < p; i++) posAmt[i] = cents[pos[i]];
+        for (int i = 0; i < q; i++) negAmt[i] = cents[neg[i]];
+
+        quickSortDescending(posAmt, pos, 0, p - 1);
+        quickSortAscending(negAmt, neg, 0, q - 1);
+
+        List<Settlement> edges = new ArrayList<>();
+        int i = 0, j = 0;
+        while (i < p && j < q) {
+            long owe = Math.min(posAmt[i], -negAmt[j]);
+            // debtor owes owe to creditor
+            edges.add(new Settlement(names[neg[j]], names[pos[i]], Money.fromCents(owe)));
+            posAmt[i] -= owe;
+            negAmt[j] += owe;
+            if (posAmt[i] == 0) i++;
+            if (negAmt[j] == 0) j++;
+        }
+        return edges;
+    }
+
+    // Same partition scheme as TransactionService.quickSortBalancesDescending, on parallel arrays
+    static void quickSortDescending(long[] amt, int[] idx, int low, int high) {
+        while (low < high) {
+            long pivot = amt[high];
+            int i = low - 1;
+            for (int j = low; j < high; j++) {
+                if (amt[j] > pivot) swap(amt, idx, ++i, j);
+            }
+            swap(amt, idx, i + 1, high);
+            int pivotIndex = i + 1;
+            quickSortDescending(amt, idx, low, pivotIndex - 1);
+            low = pivotIndex + 1;
+        }
+    }
+
+    static void quickSortAscending(long[] amt, int[] idx, int low, int high) {
+        while (low < high) {
+            long pivot = amt[high];
+            int i = low - 1;
+            for (int j = low; j < high; j++) {
+                if (amt[j] < pivot) swap(amt, idx, ++i, j);
+            }
+            swap(amt, idx, i + 1, high);
+            int pivotIndex = i + 1;
+            quickSortAscending(amt, idx, low, pivotIndex - 1);
+            low = pivotIndex + 1;
+        }
+    }
+
+    private static void swap(long[] amt, int[] idx, int a, int b) {
+        long t = amt[a];
+        amt[a] = amt[b];
+        amt[b] = t;
+        int ti = idx[a];
+        idx[a] = idx[b];
+        idx[b] = ti;
+    }
+}
@@ -0,0 +1,204 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.Settlement;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Settles a ledger snapshot one connected component at a time.
+ *
+ * Users in different components never traded with each other, so each
+ * component is settled independently and transfers never cross friend groups.
+ * Components are spread over a dedicated {@link ForkJoinPool}: the component
+ * list is split in halves by user count until a slice holds at most
+ * {@link #SEQUENTIAL_THRESHOLD} users, and those slices run in parallel.
+ * With a parallelism of 1, or no more users than the threshold, no task is
+ * created and the components are settled on the calling thread. The result
+ * lists components in snapshot order, so the plan is deterministic.
+ */
+@Component
+public class ComponentSettlementExecutor {
+    // below this many users a slice of components is settled on the calling thread
+    static final int SEQUENTIAL_THRESHOLD = 512;
+
+    private final ForkJoinPool pool;
+    private final AtomicLong runs = new AtomicLong();
+    private volatile int lastComponents;
+    private volatile int lastLargestComponent;
+    private volatile long lastMicros;
+
+    public ComponentSettlementExecutor(@Value("${settlement.parallelism:0}") int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(Math.min(threads, 256));
+    }
+
+    /**
+     * Settlement algorithm applied to a single component. Implementations
+     * must not modify the arrays and must be safe to call concurrently.
+     * {@code deadline} is the request's {@link System#nanoTime()} deadline,
+     * shared by all of its components; engines without a time budget ignore it.
+     */
+    public interface ComponentEngine {
+        List<Settlement> settle(String[] names, long[] cents, int count, long deadline);
+    }
+
+    /**
+     * Settle every component of {@code snapshot}. All components share the
+     * one absolute {@code deadline}, so the request as a whole is bounded by
+     * it rather than each component getting a budget of its own.
+     */
+    public List<Settlement> settle(BalanceLedger.Snapshot snapshot, ComponentEngine engine, long deadline) {
+        long started = System.nanoTime();
+        Components parts = Components.of(snapshot);
+        List<Settlement>[] results = newResults(parts.count());
+        if (parts.users() <= SEQUENTIAL_THRESHOLD || pool.getParallelism() == 1) {
+            // no tasks at all: a task forked outside a worker thread would run on the common pool
+            settleRange(parts, engine, deadline, results, 0, parts.count());
+        } else {
+            pool.invoke(new SettleSlice(parts, engine, deadline, results, 0, parts.count()));
+        }
+
+        List<Settlement> plan = new ArrayList<>();
+        for (List<Settlement> r : results) {
+            if (r != null) plan.addAll(r);
+        }
+        runs.incrementAndGet();
+        lastComponents = parts.count();
+        lastLargestComponent = parts.largest();
+        lastMicros = (System.nanoTime() - started) / 1_000;
+        return plan;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new java.util.LinkedHashMap<>();
+        out.put("parallelism", pool.getParallelism());
+        out.put("runs", runs.get());
+        out.put("lastComponents", lastComponents);
+        out.put("lastLargestComponent", lastLargestComponent);
+        out.put("lastMicros", lastMicros);
+        return out;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static void settleRange(Components parts, ComponentEngine engine, long deadline,
+                                    List<Settlement>[] results, int from, int to) {
+        for (int c = from; c < to; c++) {
+            int lo = parts.start[c];
+            int size = parts.start[c + 1] - lo;
+            String[] names = java.util.Arrays.copyOfRange(parts.names, lo, lo + size);
+            long[] cents = java.util.Arrays.copyOfRange(parts.cents, lo, lo + size);
+            results[c] = engine.settle(names, cents, size, deadline);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Settlement>[] newResults(int n) {
+        return (List<Settlement>[]) new List[n];
+    }
+
+    /**
+     * Users with a non-zero balance grouped by component. Members of
+     * component c are {@code names/cents[start[c] .. start[c + 1] - 1]};
+     * components with nothing to settle are dropped.
+     */
+    private static final class Components {
+        final String[] names;
+        final long[] cents;
+        final int[] start;
+
+        private Components(String[] names, long[] cents, int[] start) {
+            this.names = names;
+            this.cents = cents;
+            this.start = start;
+        }
+
+        static Components of(BalanceLedger.Snapshot snapshot) {
+            int n = snapshot.size();
+            int k = snapshot.getComponentCount();
+            int[] comp = snapshot.getComponents();
+            long[] cents = snapshot.getCents();
+
+            // counting sort of the non-zero entries by component, stable in snapshot order
+            int[] counts = new int[k + 1];
+            for (int i = 0; i < n; i++) {
+                if (cents[i] != 0) counts[comp[i] + 1]++;
+            }
+            int kept = 0;
+            int[] remap = new int[k];
+            for (int c = 0; c < k; c++) {
+                remap[c] = counts[c + 1] > 0 ? kept++ : -1;
+            }
+            int[] start = new int[kept + 1];
+            for (int c = 0; c < k; c++) {
+                if (remap[c] >= 0) start[remap[c] + 1] = counts[c + 1];
+            }
+            for (int c = 0; c < kept; c++) start[c + 1] += start[c];
+
+            int[] next = java.util.Arrays.copyOf(start, kept);
+            String[] outNames = new String[start[kept]];
+            long[] outCents = new long[start[kept]];
+            String[] names = snapshot.getNames();
+            for (int i = 0; i < n; i++) {
+                if (cents[i] == 0) continue;
+                int slot = next[remap[comp[i]]]++;
+                outNames[slot] = names[i];
+                outCents[slot] = cents[i];
+            }
+            return new Components(outNames, outCents, start);
+        }
+
+        int count() { return start.length - 1; }
+        int users() { return names.length; }
+
+        int largest() {
+            int max = 0;
+            for (int c = 0; c < count(); c++) max = Math.max(max, start[c + 1] - start[c]);
+            return max;
+        }
+    }
+
+    private static final class SettleSlice extends RecursiveAction {
+        private final Components parts;
+        private final ComponentEngine engine;
+        private final long deadline;
+        private final List<Settlement>[] results;
+        private final int from;
+        private final int to;
+
+        SettleSlice(Components parts, ComponentEngine engine, long deadline, List<Settlement>[] results, int from, int to) {
+            this.parts = parts;
+            this.engine = engine;
+            this.deadline = deadline;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            int users = parts.start[to] - parts.start[from];
+            if (to - from == 1 || users <= SEQUENTIAL_THRESHOLD) {
+                settleRange(parts, engine, deadline, results, from, to);
+                return;
+            }
+            // split at the component boundary closest to half of the users
+            int mid = java.util.Arrays.binarySearch(parts.start, from, to, parts.start[from] + users / 2);
+            if (mid < 0) mid = -mid - 1;
+            mid = Math.max(from + 1, Math.min(mid, to - 1));
+            invokeAll(new SettleSlice(parts, engine, deadline, results, from, mid),
+                      new SettleSlice(parts, engine, deadline, results, mid, to));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.Settlement;
+import com.smartsplitpro.model.Transaction;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assembles everything the dashboard shows (transactions, global and
+ * per-user balances and settlements, notifications and the raw-vs-optimized
+ * comparison) in one pass over one {@link BalanceLedger} snapshot, so the
+ * parts of the response agree with each other and the optimizer runs at
+ * most once.
+ */
+@Service
+public class DashboardService {
+    // re-reads of the transaction rows when writes keep landing while they are read
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final TransactionService transactionService;
+    private final BalanceLedger balanceLedger;
+    private final NotificationDigests notificationDigests;
+
+    public DashboardService(TransactionService transactionService, BalanceLedger balanceLedger, NotificationDigests notificationDigests) {
+        this.transactionService = transactionService;
+        this.balanceLedger = balanceLedger;
+        this.notificationDigests = notificationDigests;
+    }
+
+    /**
+     * Dashboard data for {@code username}. Admins get every transaction in
+     * {@code transactions}, other users the ones they own.
+     */
+    public Map<String, Object> build(String username, boolean isAdmin) {
+        List<Transaction> transactions;
+        List<Transaction> mine;
+        BalanceLedger.OwnerView view;
+        for (int attempt = 1; ; attempt++) {
+            long before = balanceLedger.version();
+            mine = isAdmin || username == null ? null : transactionService.listByUser(username);
+            transactions = isAdmin ? transactionService.listAll() : (mine == null ? Collections.emptyList() : mine);
+            view = balanceLedger.view(username);
+            // a write was applied while the rows were read; read again so rows and balances agree
+            if (view.getVersion() == before || attempt == MAX_ATTEMPTS) break;
+        }
+        BalanceLedger.Snapshot snapshot = view.getSnapshot();
+
+        List<Settlement> settlements = transactionService.computeSettlements(snapshot);
+        List<Settlement> mySettlements = new ArrayList<>();
+        if (username != null) {
+            for (Settlement s : settlements) {
+                if (s != null && (username.equals(s.getFrom()) || username.equals(s.getTo()))) mySettlements.add(s);
+            }
+        }
+
+        NotificationDigests.Digest digest = notificationDigests.get(username);
+        if (digest.getLedgerVersion() != snapshot.getVersion()) {
+            digest = notificationDigests.computeAt(username, snapshot, mine);
+        }
+        Map<String, Object> notifications = new LinkedHashMap<>();
+        notifications.put("owe", digest.getOwe());
+        notifications.put("receive", digest.getReceive());
+        notifications.put("limitedView", digest.isLimitedView());
+        notifications.put("isOptimized", true);
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("version", snapshot.getVersion());
+        out.put("username", username);
+        out.put("isAdmin", isAdmin);
+        out.put("transactions", transactions);
+        out.put("balances", snapshot.getBalances());
+        out.put("myBalances", view.getOwnerBalances());
+        out.put("settlements", settlements);
+        out.put("mySettlements", mySettlements);
+        out.put("notifications", notifications);
+        out.put("comparison", digest.getComparison());
+        return out;
+    }
+}
@@ -0,0 +1,132 @@
+package com.smartsplitpro.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartsplitpro.model.HistoryParticipant;
+import com.smartsplitpro.model.TransactionHistory;
+import com.smartsplitpro.repository.HistoryParticipantRepository;
+import com.smartsplitpro.repository.TransactionHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maintains the {@link HistoryParticipant} index of the audit trail.
+ *
+ * New entries are indexed when they are written (the audit writer and the
+ * personal snapshot pass their participants in directly). Entries written
+ * before the index existed are indexed once at startup by reading the
+ * usernames out of their JSON payloads.
+ */
+@Component
+public class HistoryParticipants {
+    private static final Logger log = LoggerFactory.getLogger(HistoryParticipants.class);
+    private static final int BACKFILL_CHUNK = 500;
+
+    private final HistoryParticipantRepository participantRepository;
+    private final TransactionHistoryRepository historyRepository;
+    // payloads built by hand before the audit writer used Jackson can hold raw control
+    // characters and stray backslashes in the description
+    private final com.fasterxml.jackson.databind.ObjectReader lenientReader;
+    private final TransactionTemplate writeTx;
+
+    public HistoryParticipants(HistoryParticipantRepository participantRepository,
+                               TransactionHistoryRepository historyRepository,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager) {
+        this.participantRepository = participantRepository;
+        this.historyRepository = historyRepository;
+        this.lenientReader = objectMapper.reader()
+                .with(com.fasterxml.jackson.core.json.JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS)
+                .with(com.fasterxml.jackson.core.json.JsonReadFeature.ALLOW_BACKSLASH_ESCAPING_ANY_CHARACTER);
+        this.writeTx = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Add {@code username} in {@code role} to {@code out} unless it is blank
+     * or already listed for that role.
+     */
+    public static void add(List<HistoryParticipant> out, Long historyId, String username, String role) {
+        if (username == null || username.isBlank()) return;
+        for (HistoryParticipant p : out) {
+            if (p.getUsername().equals(username) && p.getRole().equals(role)) return;
+        }
+        out.add(new HistoryParticipant(historyId, username, role));
+    }
+
+    public void saveAll(List<HistoryParticipant> participants) {
+        if (!participants.isEmpty()) participantRepository.saveAll(participants);
+    }
+
+    /**
+     * Index every history row that has no participants yet.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long started = System.nanoTime();
+        long afterId = 0;
+        int indexed = 0;
+        try {
+            while (true) {
+                List<TransactionHistory> chunk = historyRepository.findUnindexedAfter(afterId, PageRequest.ofSize(BACKFILL_CHUNK));
+                if (chunk.isEmpty()) break;
+                List<HistoryParticipant> participants = new ArrayList<>();
+                for (TransactionHistory h : chunk) {
+                    participants.addAll(fromPayload(h));
+                    afterId = h.getId();
+                }
+                writeTx.executeWithoutResult(status -> saveAll(participants));
+                indexed += chunk.size();
+                if (chunk.size() < BACKFILL_CHUNK) break;
+            }
+        } catch (Exception e) {
+            log.error("History participant backfill stopped after {} entries", indexed, e);
+            return;
+        }
+        if (indexed > 0) {
+            log.info("Indexed participants of {} existing history entries in {} ms", indexed, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    /**
+     * Participants of an existing entry, read from its stored payload.
+     */
+    List<HistoryParticipant> fromPayload(TransactionHistory h) {
+        List<HistoryParticipant> out = new ArrayList<>();
+        add(out, h.getId(), h.getPerformedBy(), HistoryParticipant.PERFORMER);
+        if (h.getPayload() == null) return out;
+        JsonNode root;
+        try {
+            root = lenientReader.readTree(h.getPayload());
+        } catch (Exception e) {
+            // e.g. a description ending in a backslash, which swallowed its closing quote
+            log.warn("Unparseable payload in history entry {}, indexing its performer only: {}", h.getId(), e.getMessage());
+            return out;
+        }
+        add(out, h.getId(), text(root, "payerUsername"), HistoryParticipant.PAYER);
+        add(out, h.getId(), text(root, "payeeUsername"), HistoryParticipant.PAYEE);
+        add(out, h.getId(), text(root, "createdBy"), HistoryParticipant.CREATOR);
+        add(out, h.getId(), text(root, "username"), HistoryParticipant.OWNER);
+        JsonNode entries = root.get("entries");
+        if (entries != null && entries.isArray()) {
+            for (JsonNode entry : entries) {
+                add(out, h.getId(), text(entry, "from"), HistoryParticipant.COUNTERPARTY);
+                add(out, h.getId(), text(entry, "to"), HistoryParticipant.COUNTERPARTY);
+            }
+        }
+        return out;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode v = node.get(field);
+        return v == null || !v.isTextual() ? null : v.asText();
+    }
+}
@@ -0,0 +1,39 @@
+package com.smartsplitpro.service;
+
+import java.util.Set;
+
+/**
+ * Published by {@link BalanceLedger} after its state changed. {@code users}
+ * holds the payer, payee and owner of the applied transaction (of every
+ * transaction, for a batch), or is null when the whole ledger was rebuilt.
+ * For a single transaction the balance delta is carried along: {@code payer}'s balance moved by {@code +cents}
+ * and {@code payee}'s by {@code -cents} (negative when a transaction was
+ * removed).
+ */
+public class LedgerChangedEvent {
+    private final long version;
+    private final Set<String> users;
+    private final String payer;
+    private final String payee;
+    private final long cents;
+
+    public LedgerChangedEvent(long version, Set<String> users) {
+        this(version, users, null, null, 0);
+    }
+
+    public LedgerChangedEvent(long version, Set<String> users, String payer, String payee, long cents) {
+        this.version = version;
+        this.users = users;
+        this.payer = payer;
+        this.payee = payee;
+        this.cents = cents;
+    }
+
+    public long getVersion() { return version; }
+    public Set<String> getUsers() { return users; }
+    public String getPayer() { return payer; }
+    public String getPayee() { return payee; }
+    public long getCents() { return cents; }
+
+    public boolean isFullRebuild() { return users == null; }
+}
@@ -0,0 +1,303 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.LedgerCheckpoint;
+import com.smartsplitpro.model.LedgerCheckpointEntry;
+import com.smartsplitpro.repository.LedgerCheckpointEntryRepository;
+import com.smartsplitpro.repository.LedgerCheckpointRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Persistent checkpoints of the {@link BalanceLedger}, so a restart does not
+ * have to re-read the whole transaction history.
+ *
+ * A checkpoint stores every balance of the ledger (global and per owner) in
+ * cents, the pair counts, the number of transactions applied and the highest
+ * transaction id among them. On startup the newest valid checkpoint is loaded
+ * and only transactions with a higher id are replayed, so the time to the
+ * first correct balance read grows with the tail, not the table.
+ *
+ * A checkpoint stops being valid once a row it covers (id at or below its
+ * last id) changes: a delete invalidates it in the deleting transaction
+ * ({@link #invalidateCovering(long)}), and the ledger reports rows it applies
+ * at or below the checkpointed id, such as an insert that took its id before
+ * the checkpoint but committed after it. A checkpoint is written invalid,
+ * marked valid, and cleared again if such a row was applied since it was
+ * captured; a row applied after that check finds it valid and clears it
+ * itself. Without a valid checkpoint the ledger is rebuilt from the table
+ * as before.
+ *
+ * Checkpoints are written every {@code ledger.checkpoint.interval-ms} when
+ * the ledger changed, on shutdown and on demand; the newest
+ * {@code ledger.checkpoint.keep} are kept.
+ */
+@Component
+public class LedgerCheckpoints {
+    private static final Logger log = LoggerFactory.getLogger(LedgerCheckpoints.class);
+    // entries flushed and detached per step, as in a bulk import
+    private static final int WRITE_CHUNK = 1000;
+
+    private final BalanceLedger balanceLedger;
+    private final LedgerCheckpointRepository checkpointRepository;
+    private final LedgerCheckpointEntryRepository entryRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate writeTx;
+    // late writes are reported from after-commit callbacks, where only a new transaction can write
+    private final TransactionTemplate invalidateTx;
+    private final boolean enabled;
+    private final long intervalMs;
+    private final int keep;
+    private final ScheduledExecutorService scheduler;
+    // one writer at a time; held across database I/O, so not a monitor
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // ledger version of the last checkpoint written or restored
+    private volatile long checkpointedVersion = -1;
+
+    private volatile Map<String, Object> lastStartup = new LinkedHashMap<>();
+    private volatile Map<String, Object> lastCheckpoint;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public LedgerCheckpoints(BalanceLedger balanceLedger,
+                             LedgerCheckpointRepository checkpointRepository,
+                             LedgerCheckpointEntryRepository entryRepository,
+                             EntityManager entityManager,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${ledger.checkpoint.enabled:true}") boolean enabled,
+                             @Value("${ledger.checkpoint.interval-ms:600000}") long intervalMs,
+                             @Value("${ledger.checkpoint.keep:2}") int keep,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.balanceLedger = balanceLedger;
+        this.checkpointRepository = checkpointRepository;
+        this.entryRepository = entryRepository;
+        this.entityManager = entityManager;
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.invalidateTx = new TransactionTemplate(transactionManager);
+        this.invalidateTx.setPropagationBehavior(org.springframework.transaction.TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.intervalMs = Math.max(1000, intervalMs);
+        this.keep = Math.max(1, keep);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(WorkerThreads.named("ledger-checkpoint", virtualThreads));
+        if (enabled) balanceLedger.setLateWriteListener(this::onLateWrite);
+    }
+
+    /**
+     * Build the ledger at startup: from the newest usable checkpoint plus the
+     * newer transactions, else from the whole table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!balanceLedger.isEnabled()) return;
+        if (!enabled) {
+            balanceLedger.rebuild();
+            return;
+        }
+        long started = System.nanoTime();
+        Map<String, Object> startup = new LinkedHashMap<>();
+        if (!restoreNewest(startup)) {
+            balanceLedger.rebuild();
+            startup.put("mode", "rebuild");
+        }
+        startup.put("elapsedMs", (System.nanoTime() - started) / 1_000_000);
+        lastStartup = startup;
+        scheduler.scheduleWithFixedDelay(() -> checkpoint("scheduled", false), intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private boolean restoreNewest(Map<String, Object> startup) {
+        try {
+            Optional<LedgerCheckpoint> newest = checkpointRepository.findFirstByValidTrueOrderByIdDesc();
+            if (newest.isEmpty()) {
+                startup.put("reason", "no checkpoint");
+                return false;
+            }
+            LedgerCheckpoint checkpoint = newest.get();
+            long started = System.nanoTime();
+            List<LedgerCheckpointEntry> entries = entryRepository.findByCheckpointIdOrderById(checkpoint.getId());
+            startup.put("loadMs", (System.nanoTime() - started) / 1_000_000);
+            long tail = balanceLedger.restore(checkpoint, entries);
+            // an empty tail means the ledger is exactly the checkpoint
+            if (tail == 0) checkpointedVersion = balanceLedger.version();
+            startup.put("mode", "checkpoint");
+            startup.put("checkpointId", checkpoint.getId());
+            startup.put("checkpointTransactions", checkpoint.getTransactions());
+            startup.put("replayed", tail);
+            return true;
+        } catch (Exception e) {
+            log.warn("Could not restore the balance ledger from a checkpoint, rebuilding: {}", e.getMessage());
+            startup.put("reason", "restore failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Write a checkpoint of the current ledger state. Unless {@code force} is
+     * set nothing is written when the ledger has not changed since the last
+     * one. Returns a summary with {@code status} ok, skipped or error.
+     */
+    public Map<String, Object> checkpoint(String reason, boolean force) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        if (!balanceLedger.isEnabled() || !balanceLedger.isReady()) {
+            out.put("status", "error");
+            out.put("message", "The balance ledger is not built");
+            return out;
+        }
+        writeLock.lock();
+        try {
+            if (!force && balanceLedger.version() == checkpointedVersion) {
+                skipped.incrementAndGet();
+                out.put("status", "skipped");
+                out.put("message", "Ledger unchanged since the last checkpoint");
+                return out;
+            }
+            long started = System.nanoTime();
+            BalanceLedger.CheckpointImage image = balanceLedger.capture(reason);
+            if (image == null) {
+                out.put("status", "error");
+                out.put("message", "The balance ledger is not built");
+                return out;
+            }
+            LedgerCheckpoint saved = write(image);
+            if (!saved.isValid()) {
+                skipped.incrementAndGet();
+                out.put("status", "skipped");
+                out.put("message", "A transaction the checkpoint covers changed while it was written; it was discarded");
+                return out;
+            }
+            checkpointedVersion = image.getVersion();
+            written.incrementAndGet();
+
+            out.put("status", "ok");
+            out.put("id", saved.getId());
+            out.put("reason", reason);
+            out.put("lastTransactionId", saved.getLastTransactionId());
+            out.put("transactions", saved.getTransactions());
+            out.put("users", saved.getUsers());
+            out.put("entries", saved.getEntries());
+            out.put("ledgerVersion", image.getVersion());
+            out.put("elapsedMs", (System.nanoTime() - started) / 1_000_000);
+            lastCheckpoint = out;
+            log.info("Ledger checkpoint {} written ({}): {} transactions up to id {}, {} entries in {} ms",
+                    saved.getId(), reason, saved.getTransactions(), saved.getLastTransactionId(), saved.getEntries(), out.get("elapsedMs"));
+            return out;
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            log.warn("Ledger checkpoint ({}) failed: {}", reason, e.getMessage());
+            out.put("status", "error");
+            out.put("message", "Checkpoint failed: " + e.getMessage());
+            return out;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // header and entries first, then marked valid if nothing it covers changed meanwhile, then prune
+    private LedgerCheckpoint write(BalanceLedger.CheckpointImage image) {
+        LedgerCheckpoint checkpoint;
+        try {
+            checkpoint = writeTx.execute(status -> {
+                LedgerCheckpoint header = checkpointRepository.save(image.getCheckpoint());
+                List<LedgerCheckpointEntry> entries = image.getEntries();
+                for (int from = 0; from < entries.size(); from += WRITE_CHUNK) {
+                    List<LedgerCheckpointEntry> chunk = entries.subList(from, Math.min(entries.size(), from + WRITE_CHUNK));
+                    for (LedgerCheckpointEntry e : chunk) e.setCheckpointId(header.getId());
+                    entryRepository.saveAll(chunk);
+                    entityManager.flush();
+                    for (LedgerCheckpointEntry e : chunk) entityManager.detach(e);
+                }
+                return header;
+            });
+        } finally {
+            entityManager.clear();
+        }
+        long id = checkpoint.getId();
+        writeTx.executeWithoutResult(status -> checkpointRepository.markValid(id));
+        // a late row applied before the check is seen here; one applied after it finds
+        // this checkpoint valid in onLateWrite and clears it
+        boolean valid = balanceLedger.lateWrites() == image.getLateWrites();
+        if (!valid) writeTx.executeWithoutResult(status -> checkpointRepository.markInvalid(id));
+        checkpoint.setValid(valid);
+        writeTx.executeWithoutResult(status -> prune(id));
+        return checkpoint;
+    }
+
+    private void prune(long newestId) {
+        List<Long> stale = new ArrayList<>();
+        int kept = 0;
+        for (LedgerCheckpoint c : checkpointRepository.findAllByOrderByIdDesc()) {
+            if (c.isValid() && kept < keep) {
+                kept++;
+                continue;
+            }
+            stale.add(c.getId());
+        }
+        if (stale.isEmpty()) return;
+        entryRepository.deleteByCheckpointIds(stale);
+        checkpointRepository.deleteAllByIdInBatch(stale);
+    }
+
+    private void onLateWrite(long transactionId) {
+        try {
+            int cleared = invalidateTx.execute(status -> checkpointRepository.invalidateCovering(transactionId));
+            if (cleared > 0) log.info("Invalidated {} ledger checkpoint(s) covering transaction {}", cleared, transactionId);
+        } catch (Exception e) {
+            log.warn("Could not invalidate ledger checkpoints covering transaction {}: {}", transactionId, e.getMessage());
+        }
+    }
+
+    /**
+     * Mark every checkpoint that includes transaction {@code transactionId}
+     * as unusable. Joins the surrounding transaction, so call it from the one
+     * that deletes the row.
+     */
+    public void invalidateCovering(long transactionId) {
+        if (!enabled) return;
+        writeTx.executeWithoutResult(status -> checkpointRepository.invalidateCovering(transactionId));
+    }
+
+    /**
+     * Mark every checkpoint unusable, for a wipe of the transactions table.
+     */
+    public void invalidateAll() {
+        writeTx.executeWithoutResult(status -> checkpointRepository.invalidateAll());
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("intervalMs", intervalMs);
+        out.put("keep", keep);
+        out.put("startup", lastStartup);
+        out.put("lastCheckpoint", lastCheckpoint);
+        out.put("written", written.get());
+        out.put("skipped", skipped.get());
+        out.put("failed", failed.get());
+        return out;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        // the next start then only replays what was added after this
+        if (enabled) checkpoint("shutdown", false);
+    }
+}
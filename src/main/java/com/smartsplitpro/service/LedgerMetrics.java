@@ -0,0 +1,44 @@
+package com.smartsplitpro.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gauges over the in-memory ledger state, read on every scrape:
+ * - {@code smartsplit.ledger.users}: users with a balance entry;
+ * - {@code smartsplit.ledger.pairs}: user pairs with live transactions;
+ * - {@code smartsplit.ledger.version};
+ * - {@code smartsplit.settlement.transfers}: transfers in the cached plan of
+ *   each engine (NaN until that engine has planned once).
+ */
+@Component
+public class LedgerMetrics implements MeterBinder {
+    private final BalanceLedger balanceLedger;
+    private final SettlementPlanCache planCache;
+
+    public LedgerMetrics(BalanceLedger balanceLedger, SettlementPlanCache planCache) {
+        this.balanceLedger = balanceLedger;
+        this.planCache = planCache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("smartsplit.ledger.users", balanceLedger, BalanceLedger::userCount)
+                .description("Users with a balance in the ledger")
+                .register(registry);
+        Gauge.builder("smartsplit.ledger.pairs", balanceLedger, BalanceLedger::pairCount)
+                .description("User pairs with at least one live transaction")
+                .register(registry);
+        Gauge.builder("smartsplit.ledger.version", balanceLedger, BalanceLedger::version)
+                .description("Ledger version, bumped on every change")
+                .register(registry);
+        for (SettlementEngineType engine : SettlementEngineType.values()) {
+            Gauge.builder("smartsplit.settlement.transfers", planCache, c -> c.transfers(engine))
+                    .description("Transfers in the cached settlement plan")
+                    .tag("engine", engine.name().toLowerCase())
+                    .register(registry);
+        }
+    }
+}
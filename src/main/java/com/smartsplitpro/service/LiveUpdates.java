@@ -0,0 +1,357 @@
+package com.smartsplitpro.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-Sent Events channel that pushes updates to open dashboards once a
+ * write has committed:
+ * - {@code balance}: the balance delta of a transaction, to its payer, payee
+ *   and owner;
+ * - {@code notifications}: the user's new notification digest (same shape as
+ *   /api/personal-notifications), to every connected user in the debt-graph
+ *   component of a change whose digest actually changed;
+ * - {@code resync}: the connection dropped events and the client should
+ *   reload everything.
+ *
+ * Connections are held by the servlet container in async mode, so an idle
+ * dashboard costs no thread and no work beyond a periodic heartbeat comment.
+ * Each connection has a bounded buffer drained by a small dispatcher pool; a
+ * client that falls behind has its buffer replaced by a single resync event,
+ * and a failed send (usually a heartbeat to a vanished client) removes it.
+ */
+@Component
+public class LiveUpdates {
+    private static final Logger log = LoggerFactory.getLogger(LiveUpdates.class);
+    // a write commits its ledger and personal settlement changes back to back;
+    // wait this long so both land in one fan-out
+    private static final long COALESCE_MS = 50;
+
+    private final NotificationDigests notificationDigests;
+    private final BalanceLedger balanceLedger;
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final int maxConnectionsPerUser;
+    private final boolean partitioned;
+
+    private final Map<String, List<Connection>> connections = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService heartbeat;
+
+    // users whose component gets a notifications push on the next fan-out
+    private final Set<String> pendingFanout = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean fanoutScheduled = new AtomicBoolean();
+    private volatile boolean fanoutAll;
+
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong fanouts = new AtomicLong();
+
+    public LiveUpdates(NotificationDigests notificationDigests,
+                       BalanceLedger balanceLedger,
+                       @Value("${sse.buffer-size:32}") int bufferSize,
+                       @Value("${sse.heartbeat-ms:25000}") long heartbeatMs,
+                       @Value("${sse.timeout-ms:1800000}") long timeoutMs,
+                       @Value("${sse.max-connections-per-user:4}") int maxConnectionsPerUser,
+                       @Value("${sse.dispatch-threads:2}") int dispatchThreads,
+                       @Value("${settlement.partition-components:true}") boolean partitioned,
+                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.notificationDigests = notificationDigests;
+        this.balanceLedger = balanceLedger;
+        this.bufferSize = Math.max(2, bufferSize);
+        this.timeoutMs = timeoutMs;
+        this.maxConnectionsPerUser = Math.max(1, maxConnectionsPerUser);
+        this.partitioned = partitioned;
+        // with virtual threads every drain gets its own thread; sse.dispatch-threads only sizes the platform pool
+        this.dispatcher = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(WorkerThreads.numbered("sse-dispatch", true))
+                : Executors.newFixedThreadPool(Math.max(1, dispatchThreads), WorkerThreads.numbered("sse-dispatch", false));
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(WorkerThreads.named("sse-heartbeat", virtualThreads));
+        long interval = Math.max(1000, heartbeatMs);
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Open an event stream for {@code username}. The oldest stream of the
+     * user is closed when more than {@code sse.max-connections-per-user} are
+     * open.
+     */
+    public SseEmitter open(String username) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        String key = UserDirectory.normalize(username);
+        if (key == null) {
+            emitter.complete();
+            return emitter;
+        }
+        Connection c = new Connection(key, emitter);
+        List<Connection> mine = connections.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>());
+        mine.add(c);
+        connectionCount.incrementAndGet();
+        opened.incrementAndGet();
+        emitter.onCompletion(() -> remove(c));
+        emitter.onTimeout(() -> remove(c));
+        emitter.onError(e -> remove(c));
+        while (mine.size() > maxConnectionsPerUser) {
+            Connection oldest = mine.get(0);
+            remove(oldest);
+            oldest.emitter.complete();
+        }
+        Map<String, Object> hello = new LinkedHashMap<>();
+        hello.put("version", balanceLedger.version());
+        c.offer(SseEmitter.event().name("ready").data(hello, MediaType.APPLICATION_JSON));
+        return emitter;
+    }
+
+    private void remove(Connection c) {
+        if (!c.closed.compareAndSet(false, true)) return;
+        connectionCount.decrementAndGet();
+        connections.computeIfPresent(c.user, (k, list) -> {
+            list.remove(c);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    // runs after NotificationDigests has queued its invalidation for the same change
+    @EventListener
+    @Order(10)
+    public void onLedgerChanged(LedgerChangedEvent event) {
+        if (connections.isEmpty()) return;
+        if (event.isFullRebuild()) {
+            fanoutAll = true;
+            scheduleFanout();
+            return;
+        }
+        if (event.getPayer() != null && event.getPayee() != null) {
+            Map<String, Object> delta = new LinkedHashMap<>();
+            delta.put("version", event.getVersion());
+            delta.put("payer", event.getPayer());
+            delta.put("payee", event.getPayee());
+            delta.put("amount", Money.fromCents(event.getCents()));
+            Set<String> recipients = new HashSet<>();
+            for (String user : event.getUsers()) {
+                String key = UserDirectory.normalize(user);
+                if (key != null && recipients.add(key)) {
+                    send(key, () -> SseEmitter.event().name("balance").data(delta, MediaType.APPLICATION_JSON));
+                }
+            }
+        }
+        pendingFanout.addAll(event.getUsers());
+        scheduleFanout();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(10)
+    public void onPersonalSettlementsChanged(PersonalSettlementsChangedEvent event) {
+        if (connections.isEmpty() || event.getUsers() == null) return;
+        pendingFanout.addAll(event.getUsers());
+        scheduleFanout();
+    }
+
+    private void scheduleFanout() {
+        if (fanoutScheduled.compareAndSet(false, true)) {
+            heartbeat.schedule(() -> dispatcher.execute(this::fanout), COALESCE_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Push fresh digests to the connected users affected by the changes
+     * queued since the last fan-out. Digests that were not invalidated are
+     * the same instance as the last one pushed and are skipped.
+     */
+    private void fanout() {
+        fanoutScheduled.set(false);
+        List<String> users = new ArrayList<>(pendingFanout);
+        pendingFanout.removeAll(users);
+        boolean all = fanoutAll || !partitioned;
+        fanoutAll = false;
+        if (!all && users.isEmpty()) return;
+        fanouts.incrementAndGet();
+
+        Set<String> recipients = new HashSet<>();
+        if (all) {
+            recipients.addAll(connections.keySet());
+        } else {
+            BalanceLedger.Snapshot snapshot = balanceLedger.snapshot();
+            for (String user : users) {
+                addIfConnected(recipients, user);
+                for (String member : snapshot.componentMembers(user)) addIfConnected(recipients, member);
+            }
+        }
+        for (String user : recipients) {
+            List<Connection> mine = connections.get(user);
+            if (mine == null) continue;
+            try {
+                NotificationDigests.Digest digest = notificationDigests.get(user);
+                Map<String, Object> payload = new LinkedHashMap<>();
+                payload.put("owe", digest.getOwe());
+                payload.put("receive", digest.getReceive());
+                payload.put("limitedView", digest.isLimitedView());
+                payload.put("isOptimized", true);
+                payload.put("version", digest.getLedgerVersion());
+                for (Connection c : mine) {
+                    if (c.lastDigest == digest) continue;
+                    c.lastDigest = digest;
+                    c.offer(SseEmitter.event().name("notifications").data(payload, MediaType.APPLICATION_JSON));
+                }
+            } catch (Exception e) {
+                log.warn("Could not push notifications to {}: {}", user, e.getMessage());
+            }
+        }
+    }
+
+    private void addIfConnected(Set<String> recipients, String user) {
+        String key = UserDirectory.normalize(user);
+        if (key != null && connections.containsKey(key)) recipients.add(key);
+    }
+
+    // builders are single-use, so every connection gets its own
+    private void send(String user, java.util.function.Supplier<SseEmitter.SseEventBuilder> event) {
+        List<Connection> mine = connections.get(user);
+        if (mine == null) return;
+        for (Connection c : mine) c.offer(event.get());
+    }
+
+    private void sendHeartbeats() {
+        try {
+            for (List<Connection> mine : connections.values()) {
+                for (Connection c : mine) {
+                    // a busy connection proves liveness with its own events
+                    if (c.isIdle()) c.offer(SseEmitter.event().comment("hb"));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("SSE heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("connections", connectionCount.get());
+        out.put("users", connections.size());
+        out.put("opened", opened.get());
+        out.put("sent", sent.get());
+        out.put("overflows", overflows.get());
+        out.put("dropped", dropped.get());
+        out.put("fanouts", fanouts.get());
+        out.put("bufferSize", bufferSize);
+        out.put("maxConnectionsPerUser", maxConnectionsPerUser);
+        return out;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        dispatcher.shutdownNow();
+        for (List<Connection> mine : connections.values()) {
+            for (Connection c : mine) {
+                try {
+                    c.emitter.complete();
+                } catch (Exception ignored) {}
+            }
+        }
+        connections.clear();
+    }
+
+    /**
+     * One open stream with its bounded send buffer. At most one dispatcher
+     * task drains a connection at a time, so events arrive in order.
+     */
+    private final class Connection {
+        final String user;
+        final SseEmitter emitter;
+        final ArrayDeque<SseEmitter.SseEventBuilder> buffer = new ArrayDeque<>();
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        // last digest pushed on this connection, to skip unchanged ones
+        volatile Object lastDigest;
+
+        Connection(String user, SseEmitter emitter) {
+            this.user = user;
+            this.emitter = emitter;
+        }
+
+        boolean isIdle() {
+            synchronized (buffer) {
+                return buffer.isEmpty() && !draining.get();
+            }
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed.get()) return;
+            synchronized (buffer) {
+                if (buffer.size() >= bufferSize) {
+                    // the client fell behind: replace the backlog with one resync
+                    overflows.incrementAndGet();
+                    dropped.addAndGet(buffer.size());
+                    buffer.clear();
+                    buffer.add(SseEmitter.event().name("resync").data("{}", MediaType.APPLICATION_JSON));
+                } else {
+                    buffer.add(event);
+                }
+            }
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (java.util.concurrent.RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder next;
+                synchronized (buffer) {
+                    next = buffer.poll();
+                    if (next == null) {
+                        draining.set(false);
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(next);
+                    sent.incrementAndGet();
+                } catch (Exception e) {
+                    // client went away; the container completes the emitter
+                    remove(this);
+                    synchronized (buffer) {
+                        buffer.clear();
+                        draining.set(false);
+                    }
+                    try {
+                        emitter.completeWithError(e);
+                    } catch (Exception ignored) {}
+                    return;
+                }
+            }
+        }
+    }
+}
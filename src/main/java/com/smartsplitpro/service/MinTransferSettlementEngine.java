@@ -0,0 +1,281 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.Settlement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Settlement engine that minimises the number of transfers.
+ *
+ * n non-zero balances can always be settled in n - k transfers, where k is
+ * the largest number of disjoint zero-sum groups the balances can be split
+ * into (each group of size m settles internally in m - 1 transfers). Finding
+ * k is NP-hard, so:
+ * - up to {@code settlement.exact.dp-max-users} balances, a memoised bitmask
+ *   DP over all subsets finds the optimal grouping;
+ * - above that, a branch-and-bound search runs until the time budget is
+ *   spent, starting from the greedy plan as the incumbent. If the budget runs
+ *   out the best plan found so far (at worst the greedy one) is returned.
+ *
+ * Requested budgets are clamped to {@code settlement.exact.max-budget-ms}.
+ * A request turns its budget into one absolute {@link #deadline(Long)
+ * deadline} that every component of the plan shares, so a request costs at
+ * most its budget however many components it has.
+ */
+@Component
+public class MinTransferSettlementEngine {
+    // probe the clock every this many search nodes
+    private static final int CLOCK_CHECK_INTERVAL = 1024;
+    // upper bound for the configured maximum, so the deadline arithmetic cannot overflow
+    private static final long BUDGET_CEILING_MS = 3_600_000L;
+
+    private final CentsSettlementEngine greedy = new CentsSettlementEngine();
+    private final int dpMaxUsers;
+    private final long defaultBudgetMs;
+    private final long maxBudgetMs;
+
+    private final AtomicLong solvedByDp = new AtomicLong();
+    private final AtomicLong solvedBySearch = new AtomicLong();
+    private final AtomicLong budgetExhausted = new AtomicLong();
+
+    public MinTransferSettlementEngine(@Value("${settlement.exact.dp-max-users:18}") int dpMaxUsers,
+                                       @Value("${settlement.exact.time-budget-ms:200}") long defaultBudgetMs,
+                                       @Value("${settlement.exact.max-budget-ms:2000}") long maxBudgetMs) {
+        // 2^n longs for the subset sums; keep that allocation sane
+        this.dpMaxUsers = Math.max(1, Math.min(dpMaxUsers, 22));
+        this.maxBudgetMs = Math.max(0, Math.min(maxBudgetMs, BUDGET_CEILING_MS));
+        this.defaultBudgetMs = Math.max(0, Math.min(defaultBudgetMs, this.maxBudgetMs));
+    }
+
+    public long getDefaultBudgetMs() {
+        return defaultBudgetMs;
+    }
+
+    /**
+     * The budget a request actually gets: {@code budgetMs} (null means the
+     * default) clamped to {@code 0 .. settlement.exact.max-budget-ms}.
+     */
+    public long effectiveBudgetMs(Long budgetMs) {
+        long requested = budgetMs == null ? defaultBudgetMs : budgetMs;
+        return Math.max(0, Math.min(requested, maxBudgetMs));
+    }
+
+    /**
+     * Absolute {@link System#nanoTime()} deadline for a request with
+     * {@code budgetMs}; compute it once and pass it to every component.
+     */
+    public long deadline(Long budgetMs) {
+        return System.nanoTime() + effectiveBudgetMs(budgetMs) * 1_000_000L;
+    }
+
+    /**
+     * Settle the first {@code count} entries of {@code names}/{@code cents}.
+     * The branch-and-bound phase stops at {@code deadline} (see
+     * {@link #deadline(Long)}). The arrays are not modified.
+     */
+    public List<Settlement> settle(String[] names, long[] cents, int count, long deadline) {
+        int[] nonZero = new int[count];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (cents[i] != 0) nonZero[n++] = i;
+        }
+        if (n == 0) return new ArrayList<>();
+        String[] subNames = new String[n];
+        long[] subCents = new long[n];
+        for (int i = 0; i < n; i++) {
+            subNames[i] = names[nonZero[i]];
+            subCents[i] = cents[nonZero[i]];
+        }
+
+        if (n <= dpMaxUsers) {
+            solvedByDp.incrementAndGet();
+            return settleByGroups(subNames, subCents, zeroSumGroups(subCents));
+        }
+        return search(subNames, subCents, deadline);
+    }
+
+    public java.util.Map<String, Object> stats() {
+        java.util.Map<String, Object> out = new java.util.LinkedHashMap<>();
+        out.put("dpMaxUsers", dpMaxUsers);
+        out.put("defaultBudgetMs", defaultBudgetMs);
+        out.put("maxBudgetMs", maxBudgetMs);
+        out.put("solvedByDp", solvedByDp.get());
+        out.put("solvedBySearch", solvedBySearch.get());
+        out.put("budgetExhausted", budgetExhausted.get());
+        return out;
+    }
+
+    // ---------------------------------------------------------------- bitmask DP
+
+    /**
+     * Partition indices 0..n-1 into the maximum number of zero-sum groups.
+     * dp[mask] = max over i in mask of dp[mask without i], plus one if mask
+     * itself sums to zero; walking back from the full mask, every zero-sum
+     * mask on the path closes a group.
+     */
+    static List<int[]> zeroSumGroups(long[] cents) {
+        int n = cents.length;
+        int full = (1 << n) - 1;
+        long[] sum = new long[full + 1];
+        byte[] dp = new byte[full + 1];
+        for (int mask = 1; mask <= full; mask++) {
+            int low = Integer.numberOfTrailingZeros(mask);
+            sum[mask] = sum[mask & (mask - 1)] + cents[low];
+            int best = 0;
+            for (int rest = mask; rest != 0; rest &= rest - 1) {
+                int bit = rest & -rest;
+                if (dp[mask ^ bit] > best) best = dp[mask ^ bit];
+            }
+            dp[mask] = (byte) (best + (sum[mask] == 0 ? 1 : 0));
+        }
+
+        List<int[]> groups = new ArrayList<>();
+        int[] current = new int[n];
+        int size = 0;
+        int mask = full;
+        while (mask != 0) {
+            int target = dp[mask] - (sum[mask] == 0 ? 1 : 0);
+            for (int rest = mask; rest != 0; rest &= rest - 1) {
+                int bit = rest & -rest;
+                if (dp[mask ^ bit] == target) {
+                    current[size++] = Integer.numberOfTrailingZeros(bit);
+                    mask ^= bit;
+                    break;
+                }
+            }
+            if (sum[mask] == 0) {
+                int[] group = Arrays.copyOf(current, size);
+                Arrays.sort(group);
+                groups.add(group);
+                size = 0;
+            }
+        }
+        // groups were collected from the back; restore input order
+        java.util.Collections.reverse(groups);
+        return groups;
+    }
+
+    private List<Settlement> settleByGroups(String[] names, long[] cents, List<int[]> groups) {
+        List<Settlement> edges = new ArrayList<>();
+        for (int[] group : groups) {
+            String[] groupNames = new String[group.length];
+            long[] groupCents = new long[group.length];
+            for (int i = 0; i < group.length; i++) {
+                groupNames[i] = names[group[i]];
+                groupCents[i] = cents[group[i]];
+            }
+            // a zero-sum group of m users settles greedily in at most m - 1 transfers
+            edges.addAll(greedy.settle(groupNames, groupCents, group.length));
+        }
+        return edges;
+    }
+
+    // ---------------------------------------------------------- branch and bound
+
+    private List<Settlement> search(String[] names, long[] cents, long deadline) {
+        List<Settlement> incumbent = greedy.settle(names, cents, cents.length);
+        Search s = new Search(cents, deadline, incumbent.size());
+        s.dfs(0, 0);
+        if (s.timedOut) budgetExhausted.incrementAndGet();
+        else solvedBySearch.incrementAndGet();
+        if (s.bestFrom == null) return incumbent;
+
+        List<Settlement> edges = new ArrayList<>(s.bestDepth);
+        for (int k = 0; k < s.bestDepth; k++) {
+            edges.add(new Settlement(names[s.bestFrom[k]], names[s.bestTo[k]], Money.fromCents(s.bestAmount[k])));
+        }
+        return edges;
+    }
+
+    /**
+     * Depth-first search that settles the first open balance against one open
+     * balance of the opposite sign per level. Bounded by the incumbent size
+     * and a lower bound of ceil(open / 2) remaining transfers.
+     */
+    private static final class Search {
+        final long[] bal;
+        final long deadline;
+        final int[] from, to;
+        final long[] amount;
+        int bestDepth;
+        int[] bestFrom, bestTo;
+        long[] bestAmount;
+        long nodes;
+        boolean timedOut;
+
+        Search(long[] cents, long deadline, int incumbentSize) {
+            this.bal = cents.clone();
+            this.deadline = deadline;
+            this.from = new int[cents.length];
+            this.to = new int[cents.length];
+            this.amount = new long[cents.length];
+            this.bestDepth = incumbentSize;
+        }
+
+        void dfs(int start, int depth) {
+            if (timedOut) return;
+            if ((++nodes % CLOCK_CHECK_INTERVAL) == 0 && System.nanoTime() > deadline) {
+                timedOut = true;
+                return;
+            }
+            while (start < bal.length && bal[start] == 0) start++;
+            if (start == bal.length) {
+                if (depth < bestDepth) {
+                    bestDepth = depth;
+                    bestFrom = Arrays.copyOf(from, depth);
+                    bestTo = Arrays.copyOf(to, depth);
+                    bestAmount = Arrays.copyOf(amount, depth);
+                }
+                return;
+            }
+            int open = 0;
+            for (int i = start; i < bal.length; i++) if (bal[i] != 0) open++;
+            if (depth + (open + 1) / 2 >= bestDepth) return;
+
+            long b = bal[start];
+            // an exact counterpart closes two balances at once and is always safe to take
+            for (int j = start + 1; j < bal.length; j++) {
+                if (bal[j] == -b) {
+                    branch(start, j, depth);
+                    return;
+                }
+            }
+            for (int j = start + 1; j < bal.length; j++) {
+                if (bal[j] == 0 || (bal[j] > 0) == (b > 0)) continue;
+                // equal balances lead to identical subtrees
+                if (seenBefore(start + 1, j)) continue;
+                branch(start, j, depth);
+                if (timedOut) return;
+            }
+        }
+
+        private boolean seenBefore(int from, int j) {
+            for (int k = from; k < j; k++) if (bal[k] == bal[j]) return true;
+            return false;
+        }
+
+        private void branch(int start, int j, int depth) {
+            long b = bal[start];
+            if (b > 0) {
+                // j owes start
+                from[depth] = j;
+                to[depth] = start;
+                amount[depth] = b;
+            } else {
+                from[depth] = start;
+                to[depth] = j;
+                amount[depth] = -b;
+            }
+            bal[j] += b;
+            bal[start] = 0;
+            dfs(start + 1, depth + 1);
+            bal[start] = b;
+            bal[j] -= b;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.smartsplitpro.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between {@link BigDecimal} amounts and fixed-point minor units
+ * (cents) held in a {@code long}. Amount columns are stored with two decimals,
+ * so every persisted amount maps exactly onto a whole number of cents.
+ */
+public final class Money {
+    public static final int SCALE = 2;
+
+    private Money() {}
+
+    public static long toCents(BigDecimal amount) {
+        if (amount == null) return 0L;
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+}
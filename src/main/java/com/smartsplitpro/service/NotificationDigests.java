@@ -0,0 +1,273 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.PersonalSettlement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Materialised per-user notification digests: the personal notifications
+ * (owe / receive / limitedView) and the raw-vs-optimized comparison, computed
+ * once and served from memory to the pollers until an input changes.
+ *
+ * A user's optimized settlements only depend on the balances of their
+ * connected component of the debt graph, so a digest is dropped when a
+ * {@link LedgerChangedEvent} touches any member of that component, when
+ * personal settlement rows involving the user change, or when a counterparty
+ * registers. Ledger changes are only queued when they happen and resolved
+ * against the next ledger snapshot on the following read, so a burst of
+ * writes costs one component lookup. Without component partitioning every
+ * ledger change drops all digests.
+ */
+@Component
+public class NotificationDigests {
+    private static final Logger log = LoggerFactory.getLogger(NotificationDigests.class);
+
+    private final TransactionService transactionService;
+    private final BalanceLedger balanceLedger;
+    private final boolean enabled;
+    private final boolean partitioned;
+
+    private final Map<String, Digest> digests = new ConcurrentHashMap<>();
+    // users whose components are evicted on the next read
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private volatile boolean clearPending;
+    // bumped by every invalidation; a digest computed across one is not stored
+    private final AtomicLong generation = new AtomicLong();
+    // guards digest mutation; draining waits for the ledger lock, which must not pin a virtual thread
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+    public NotificationDigests(TransactionService transactionService,
+                               BalanceLedger balanceLedger,
+                               @Value("${notifications.digest.enabled:true}") boolean enabled,
+                               @Value("${settlement.partition-components:true}") boolean partitioned) {
+        this.transactionService = transactionService;
+        this.balanceLedger = balanceLedger;
+        this.enabled = enabled;
+        this.partitioned = partitioned;
+    }
+
+    /**
+     * The digest of {@code username}, computed on first use and whenever an
+     * input changed since the last computation.
+     */
+    public Digest get(String username) {
+        if (username == null) return compute(null);
+        String key = UserDirectory.normalize(username);
+        if (enabled) {
+            drainPending();
+            Digest cached = digests.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+        long started = generation.get();
+        Digest digest = compute(username);
+        if (enabled) store(key, digest, started);
+        return digest;
+    }
+
+    private Digest compute(String username) {
+        return computeAt(username, balanceLedger.snapshot(), null);
+    }
+
+    /**
+     * Compute (without caching) the digest for the settlement plan of
+     * {@code snapshot}. {@code userTransactions} may pass in the user's
+     * already loaded transactions; null reads them when needed.
+     */
+    public Digest computeAt(String username, BalanceLedger.Snapshot snapshot, List<com.smartsplitpro.model.Transaction> userTransactions) {
+        Map<String, List<PersonalSettlement>> map = username == null
+                ? transactionService.listPersonalNotifications(null)
+                : transactionService.listPersonalNotifications(username, transactionService.computeSettlements(snapshot));
+        List<PersonalSettlement> owe = map.getOrDefault("owe", Collections.emptyList());
+        List<PersonalSettlement> receive = map.getOrDefault("receive", Collections.emptyList());
+
+        boolean hasNotifyOnly = false;
+        for (PersonalSettlement p : owe) if (p.isNotifyOnly()) { hasNotifyOnly = true; break; }
+        if (!hasNotifyOnly) for (PersonalSettlement p : receive) if (p.isNotifyOnly()) { hasNotifyOnly = true; break; }
+
+        boolean limitedView = false;
+        if (hasNotifyOnly) {
+            boolean hasTransactions = false;
+            try {
+                List<com.smartsplitpro.model.Transaction> userTxs = userTransactions != null ? userTransactions : transactionService.listByUser(username);
+                hasTransactions = userTxs != null && !userTxs.isEmpty();
+            } catch (Exception ignored) {}
+
+            boolean hasNonNotifyPersonal = false;
+            try {
+                List<PersonalSettlement> personal = transactionService.listPersonalAll(username);
+                if (personal != null) {
+                    for (PersonalSettlement p : personal) {
+                        if (p != null && !p.isNotifyOnly()) { hasNonNotifyPersonal = true; break; }
+                    }
+                }
+            } catch (Exception ignored) {}
+
+            limitedView = !hasTransactions && !hasNonNotifyPersonal;
+        }
+
+        Map<String, Object> comparison = transactionService.getOptimizedNotificationsWithComparison(username, userTransactions, map);
+        return new Digest(owe, receive, limitedView, comparison, snapshot.getVersion());
+    }
+
+    private void store(String key, Digest digest, long started) {
+        lock.lock();
+        try {
+            if (generation.get() != started) {
+                // an input changed while computing; the next poll recomputes
+                discarded.incrementAndGet();
+                return;
+            }
+            digests.put(key, digest);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Apply queued invalidations: evict every digest in the current component
+     * of a queued user. Adding a transaction only merges components, and
+     * removing one leaves every former member in the component of its payer
+     * or payee (both queued), so the current snapshot covers everyone the
+     * change could have affected.
+     */
+    private void drainPending() {
+        lock.lock();
+        try {
+            if (clearPending) {
+                clearPending = false;
+                pending.clear();
+                evictions.addAndGet(digests.size());
+                digests.clear();
+                return;
+            }
+            if (pending.isEmpty()) return;
+            List<String> users = new ArrayList<>(pending);
+            pending.removeAll(users);
+            BalanceLedger.Snapshot snapshot = balanceLedger.snapshot();
+            for (String user : users) {
+                evict(UserDirectory.normalize(user));
+                for (String member : snapshot.componentMembers(user)) evict(UserDirectory.normalize(member));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evict(String owner) {
+        if (owner != null && digests.remove(owner) != null) evictions.incrementAndGet();
+    }
+
+    // Event handlers only queue work: they can run on a thread that holds the
+    // ledger lock, and draining takes the ledger lock while holding ours.
+
+    @EventListener
+    @Order(0)
+    public void onLedgerChanged(LedgerChangedEvent event) {
+        if (event.isFullRebuild() || !partitioned) {
+            invalidateAll();
+        } else {
+            invalidate(event.getUsers());
+        }
+    }
+
+    // personal settlement writes are only visible to readers once committed
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(0)
+    public void onPersonalSettlementsChanged(PersonalSettlementsChangedEvent event) {
+        invalidate(event.getUsers());
+    }
+
+    /**
+     * Drop the digests of {@code users} and of everyone in their component of
+     * the debt graph before the next read.
+     */
+    public void invalidate(Collection<String> users) {
+        generation.incrementAndGet();
+        if (users == null || digests.isEmpty()) return;
+        if (!partitioned) {
+            invalidateAll();
+            return;
+        }
+        for (String user : users) if (user != null) pending.add(user);
+    }
+
+    public void invalidate(String user) {
+        invalidate(Collections.singleton(user));
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        clearPending = true;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        long h = hits.get();
+        long m = misses.get();
+        out.put("enabled", enabled);
+        out.put("partitioned", partitioned);
+        out.put("digests", digests.size());
+        out.put("pendingUsers", pending.size());
+        out.put("hits", h);
+        out.put("misses", m);
+        out.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        out.put("evictions", evictions.get());
+        out.put("discarded", discarded.get());
+        out.put("ledgerVersion", balanceLedger.version());
+        return out;
+    }
+
+    /**
+     * One user's notifications and comparison. The lists are shared between
+     * requests and must not be modified.
+     */
+    public static class Digest {
+        private final List<PersonalSettlement> owe;
+        private final List<PersonalSettlement> receive;
+        private final boolean limitedView;
+        private final Map<String, Object> comparison;
+        private final long ledgerVersion;
+        private final long computedAt = System.currentTimeMillis();
+
+        public Digest(List<PersonalSettlement> owe, List<PersonalSettlement> receive, boolean limitedView,
+                      Map<String, Object> comparison, long ledgerVersion) {
+            this.owe = Collections.unmodifiableList(new ArrayList<>(owe));
+            this.receive = Collections.unmodifiableList(new ArrayList<>(receive));
+            this.limitedView = limitedView;
+            this.comparison = Collections.unmodifiableMap(comparison);
+            this.ledgerVersion = ledgerVersion;
+        }
+
+        public List<PersonalSettlement> getOwe() { return owe; }
+        public List<PersonalSettlement> getReceive() { return receive; }
+        public boolean isLimitedView() { return limitedView; }
+        public Map<String, Object> getComparison() { return comparison; }
+        public long getLedgerVersion() { return ledgerVersion; }
+        public long getComputedAt() { return computedAt; }
+    }
+}
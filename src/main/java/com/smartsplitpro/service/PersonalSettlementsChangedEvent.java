@@ -0,0 +1,17 @@
+package com.smartsplitpro.service;
+
+import java.util.Set;
+
+/**
+ * Published by {@link TransactionService} when personal settlement rows
+ * involving {@code users} were written, settled or deleted.
+ */
+public class PersonalSettlementsChangedEvent {
+    private final Set<String> users;
+
+    public PersonalSettlementsChangedEvent(Set<String> users) {
+        this.users = users;
+    }
+
+    public Set<String> getUsers() { return users; }
+}
@@ -0,0 +1,58 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.Transaction;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * {@link TransactionScanner} over a forward-only cursor.
+ *
+ * Rows are read through a Hibernate {@link StatelessSession}: it has no
+ * persistence context, so every row comes back detached and is garbage once
+ * the action returns, and the caller's own persistence context (an
+ * open-in-view request, say) is never touched. The JDBC driver is asked for
+ * {@code ledger.scan-fetch-size} rows at a time, so heap use does not grow
+ * with the size of the table.
+ */
+@Component
+public class ScrollingTransactionScanner implements TransactionScanner {
+    private final SessionFactory sessionFactory;
+    private final int fetchSize;
+
+    public ScrollingTransactionScanner(EntityManagerFactory entityManagerFactory,
+                                       @Value("${ledger.scan-fetch-size:1000}") int fetchSize) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    @Override
+    public long forEachTransaction(long afterId, Consumer<Transaction> action) {
+        long rows = 0;
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            org.hibernate.Transaction readTx = session.beginTransaction();
+            try (ScrollableResults<Transaction> cursor = session
+                    .createSelectionQuery("from Transaction t where t.id > :afterId order by t.id", Transaction.class)
+                    .setParameter("afterId", afterId)
+                    .setFetchSize(fetchSize)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (cursor.next()) {
+                    action.accept(cursor.get());
+                    rows++;
+                }
+                readTx.commit();
+            } catch (RuntimeException e) {
+                if (readTx.isActive()) readTx.rollback();
+                throw e;
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,60 @@
+package com.smartsplitpro.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Moves id sequences past the rows that already exist.
+ *
+ * Tables that used to take identity ids keep their existing rows when an
+ * entity switches to a sequence generator, while {@code ddl-auto=update}
+ * creates the new sequence starting at 1. Before anything is inserted every
+ * such sequence is restarted above {@code max(id)} (plus one allocation block,
+ * since pooled generators hand out the values below the returned one).
+ */
+@Component
+public class SequenceAligner {
+    private static final Logger log = LoggerFactory.getLogger(SequenceAligner.class);
+
+    // sequence -> table, with the allocation size used by the entity
+    private static final Map<String, String> SEQUENCES = new LinkedHashMap<>();
+    private static final int ALLOCATION_SIZE = 50;
+
+    static {
+        SEQUENCES.put("transaction_history_seq", "transaction_history");
+        SEQUENCES.put("transaction_seq", "transaction");
+        SEQUENCES.put("personal_settlement_seq", "personal_settlement");
+        SEQUENCES.put("app_user_seq", "app_user");
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // depending on the EntityManagerFactory guarantees the schema update has already run
+    public SequenceAligner(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void align() {
+        for (Map.Entry<String, String> e : SEQUENCES.entrySet()) {
+            try {
+                Long max = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + e.getValue(), Long.class);
+                Long next = jdbcTemplate.queryForObject("select base_value from information_schema.sequences where lower(sequence_name) = ?",
+                        Long.class, e.getKey());
+                long restart = (max == null ? 0 : max) + ALLOCATION_SIZE + 1;
+                if (next != null && next >= restart) continue;
+                jdbcTemplate.execute("alter sequence " + e.getKey() + " restart with " + restart);
+                log.info("Restarted sequence {} at {} (max id in {} is {})", e.getKey(), restart, e.getValue(), max);
+            } catch (Exception ex) {
+                log.warn("Could not align sequence {}: {}", e.getKey(), ex.getMessage());
+            }
+        }
+    }
+}
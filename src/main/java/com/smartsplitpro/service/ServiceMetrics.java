@@ -0,0 +1,57 @@
+package com.smartsplitpro.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Times service calls into the {@code smartsplit.service} timer, tagged with
+ * the method name and an outcome of {@code success} or {@code error} (the
+ * call threw). Each timer also counts its calls, so the Prometheus scrape
+ * carries call rates as well as latencies.
+ *
+ * Repository calls need no wrapping: Spring Boot times every Spring Data
+ * repository method into {@code spring.data.repository.invocations}.
+ */
+@Component
+public class ServiceMetrics {
+    public static final String TIMER = "smartsplit.service";
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public ServiceMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> T time(String method, Supplier<T> call) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            timer(method, outcome).record(System.nanoTime() - start, java.util.concurrent.TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void time(String method, Runnable call) {
+        time(method, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private Timer timer(String method, String outcome) {
+        return timers.computeIfAbsent(method + '|' + outcome, k -> Timer.builder(TIMER)
+                .description("Service method latency")
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .register(registry));
+    }
+}
@@ -0,0 +1,25 @@
+package com.smartsplitpro.service;
+
+/**
+ * Settlement algorithms that can be selected per request.
+ */
+public enum SettlementEngineType {
+    /** Largest creditor against largest debtor; fast, not always minimal. */
+    GREEDY,
+    /** Fewest possible transfers via zero-sum subset search, within a time budget. */
+    EXACT;
+
+    /**
+     * Parse a request parameter ("greedy", "exact"), falling back to
+     * {@code defaultType} when the value is missing or unknown.
+     */
+    public static SettlementEngineType parse(String value, SettlementEngineType defaultType) {
+        if (value == null || value.isBlank()) return defaultType;
+        String norm = value.trim().toUpperCase().replace('-', '_');
+        if ("MIN_TRANSFERS".equals(norm) || "OPTIMAL".equals(norm)) return EXACT;
+        for (SettlementEngineType type : values()) {
+            if (type.name().equals(norm)) return type;
+        }
+        return defaultType;
+    }
+}
@@ -0,0 +1,184 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.Settlement;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caches the optimized settlement plan against the {@link BalanceLedger}
+ * version it was computed from, one plan per settlement engine. As long as no
+ * transaction is written or deleted every settlement consumer (notifications,
+ * per-user views, snapshots, the network graph) is served the same plan from
+ * memory.
+ *
+ * Only plans computed with the engine's default settings are cached. A plan
+ * with a non-default setting (an exact budget other than the configured one)
+ * can differ from the default plan, so it is never stored; see
+ * {@link #getUncached}. Either way, concurrent misses for the same engine,
+ * setting and version share one computation instead of each computing it.
+ */
+@Component
+public class SettlementPlanCache {
+    private final BalanceLedger balanceLedger;
+
+    private final Map<SettlementEngineType, Plan> plans = new java.util.concurrent.ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    // plans being computed; a second miss for the same key waits for the first
+    private final Map<Flight, CompletableFuture<List<Settlement>>> inFlight = new java.util.concurrent.ConcurrentHashMap<>();
+    private final AtomicLong shared = new AtomicLong();
+
+    public SettlementPlanCache(BalanceLedger balanceLedger) {
+        this.balanceLedger = balanceLedger;
+    }
+
+    /**
+     * Return the plan for the current ledger version, computing it from a
+     * fresh ledger snapshot on a miss. The returned list is read-only.
+     */
+    public List<Settlement> get(SettlementEngineType engine, Function<BalanceLedger.Snapshot, List<Settlement>> planner) {
+        Plan plan = plans.get(engine);
+        if (plan != null && plan.version == balanceLedger.version()) {
+            hits.incrementAndGet();
+            return plan.settlements;
+        }
+        return get(engine, balanceLedger.snapshot(), planner);
+    }
+
+    /**
+     * Return the plan for {@code snapshot}, from the cache if its version is
+     * the cached one. A plan for an older snapshot is computed but never
+     * replaces a newer cached plan.
+     */
+    public List<Settlement> get(SettlementEngineType engine, BalanceLedger.Snapshot snapshot,
+                                Function<BalanceLedger.Snapshot, List<Settlement>> planner) {
+        Plan plan = plans.get(engine);
+        if (plan != null && plan.version == snapshot.getVersion()) {
+            hits.incrementAndGet();
+            return plan.settlements;
+        }
+        return compute(new Flight(engine, Flight.DEFAULT, snapshot.getVersion()), snapshot, planner, true);
+    }
+
+    /**
+     * Plan for the current ledger version computed with a non-default
+     * {@code setting} of {@code engine} (such as an exact budget in ms). The
+     * result is not cached, but concurrent calls with the same setting at the
+     * same version share one computation.
+     */
+    public List<Settlement> getUncached(SettlementEngineType engine, long setting,
+                                        Function<BalanceLedger.Snapshot, List<Settlement>> planner) {
+        BalanceLedger.Snapshot snapshot = balanceLedger.snapshot();
+        return compute(new Flight(engine, setting, snapshot.getVersion()), snapshot, planner, false);
+    }
+
+    private List<Settlement> compute(Flight key, BalanceLedger.Snapshot snapshot,
+                                     Function<BalanceLedger.Snapshot, List<Settlement>> planner, boolean store) {
+        CompletableFuture<List<Settlement>> mine = new CompletableFuture<>();
+        CompletableFuture<List<Settlement>> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            shared.incrementAndGet();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                if (e.getCause() instanceof Error err) throw err;
+                throw e;
+            }
+        }
+        misses.incrementAndGet();
+        try {
+            List<Settlement> settlements = Collections.unmodifiableList(planner.apply(snapshot));
+            if (store) {
+                Plan computed = new Plan(snapshot.getVersion(), settlements);
+                // never replace a newer plan with an older one computed concurrently
+                plans.merge(key.engine, computed, (old, fresh) -> old.version < fresh.version ? fresh : old);
+            }
+            mine.complete(settlements);
+            return settlements;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Transfers in the cached plan of {@code engine}, NaN if none is cached.
+     */
+    public double transfers(SettlementEngineType engine) {
+        Plan plan = plans.get(engine);
+        return plan == null ? Double.NaN : plan.settlements.size();
+    }
+
+    public void invalidate() {
+        plans.clear();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        long h = hits.get();
+        long m = misses.get();
+        out.put("hits", h);
+        out.put("misses", m);
+        out.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        // misses that waited for a concurrent computation of the same plan
+        out.put("shared", shared.get());
+        out.put("ledgerVersion", balanceLedger.version());
+        Map<String, Object> cached = new LinkedHashMap<>();
+        for (Map.Entry<SettlementEngineType, Plan> e : plans.entrySet()) {
+            Map<String, Object> plan = new LinkedHashMap<>();
+            plan.put("version", e.getValue().version);
+            plan.put("transfers", e.getValue().settlements.size());
+            cached.put(e.getKey().name().toLowerCase(), plan);
+        }
+        out.put("plans", cached);
+        return out;
+    }
+
+    // what is being computed: engine, setting (DEFAULT for the cached plan) and ledger version
+    private static final class Flight {
+        static final long DEFAULT = -1;
+
+        final SettlementEngineType engine;
+        final long setting;
+        final long version;
+
+        Flight(SettlementEngineType engine, long setting, long version) {
+            this.engine = engine;
+            this.setting = setting;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Flight f)) return false;
+            return engine == f.engine && setting == f.setting && version == f.version;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(engine, setting, version);
+        }
+    }
+
+    private static class Plan {
+        final long version;
+        final List<Settlement> settlements;
+
+        Plan(long version, List<Settlement> settlements) {
+            this.version = version;
+            this.settlements = settlements;
+        }
+    }
+}
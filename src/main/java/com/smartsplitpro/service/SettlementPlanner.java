@@ -0,0 +1,97 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.Settlement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Produces the settlement plan for the current ledger state with the
+ * requested engine, going through the versioned {@link SettlementPlanCache}.
+ * Unless {@code settlement.partition-components} is off, every connected
+ * component of the debt graph is settled separately and in parallel.
+ */
+@Component
+public class SettlementPlanner {
+    private final SettlementPlanCache cache;
+    private final MinTransferSettlementEngine minTransferEngine;
+    private final ComponentSettlementExecutor componentExecutor;
+    private final CentsSettlementEngine greedyEngine = new CentsSettlementEngine();
+    private final SettlementEngineType defaultEngine;
+    private final boolean partitionComponents;
+
+    public SettlementPlanner(SettlementPlanCache cache,
+                             MinTransferSettlementEngine minTransferEngine,
+                             ComponentSettlementExecutor componentExecutor,
+                             @Value("${settlement.engine:greedy}") String defaultEngine,
+                             @Value("${settlement.partition-components:true}") boolean partitionComponents) {
+        this.cache = cache;
+        this.minTransferEngine = minTransferEngine;
+        this.componentExecutor = componentExecutor;
+        this.defaultEngine = SettlementEngineType.parse(defaultEngine, SettlementEngineType.GREEDY);
+        this.partitionComponents = partitionComponents;
+    }
+
+    public SettlementEngineType getDefaultEngine() {
+        return defaultEngine;
+    }
+
+    /**
+     * Plan with the configured default engine.
+     */
+    public List<Settlement> plan() {
+        return plan(defaultEngine, null);
+    }
+
+    /**
+     * Plan with {@code engine} (null means the default). {@code budgetMs} only
+     * applies to the exact engine and is clamped to
+     * {@code settlement.exact.max-budget-ms}; it bounds the whole request, all
+     * components together. Only plans with the default budget are cached, so
+     * a short budget never leaves a truncated plan for later callers.
+     */
+    public List<Settlement> plan(SettlementEngineType engine, Long budgetMs) {
+        SettlementEngineType type = engine == null ? defaultEngine : engine;
+        if (type == SettlementEngineType.EXACT) {
+            long budget = minTransferEngine.effectiveBudgetMs(budgetMs);
+            if (budget != minTransferEngine.getDefaultBudgetMs()) {
+                return cache.getUncached(type, budget, planner(type, budget));
+            }
+        }
+        return cache.get(type, planner(type, null));
+    }
+
+    /**
+     * Plan with the default engine for exactly {@code snapshot}, which may
+     * be older than the current ledger state.
+     */
+    public List<Settlement> plan(BalanceLedger.Snapshot snapshot) {
+        return cache.get(defaultEngine, snapshot, planner(defaultEngine, null));
+    }
+
+    private java.util.function.Function<BalanceLedger.Snapshot, List<Settlement>> planner(SettlementEngineType type, Long budgetMs) {
+        boolean exact = type == SettlementEngineType.EXACT;
+        ComponentSettlementExecutor.ComponentEngine settle = exact
+                ? minTransferEngine::settle
+                : (names, cents, count, deadline) -> greedyEngine.settle(names, cents, count);
+        return snapshot -> {
+            // one deadline per request, taken when the plan is actually computed
+            long deadline = exact ? minTransferEngine.deadline(budgetMs) : Long.MAX_VALUE;
+            if (partitionComponents) {
+                return componentExecutor.settle(snapshot, settle, deadline);
+            }
+            return settle.settle(snapshot.getNames(), snapshot.getCents(), snapshot.size(), deadline);
+        };
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = cache.stats();
+        out.put("defaultEngine", defaultEngine.name().toLowerCase());
+        out.put("partitionComponents", partitionComponents);
+        out.put("components", componentExecutor.stats());
+        out.put("exact", minTransferEngine.stats());
+        return out;
+    }
+}
@@ -0,0 +1,51 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.Transaction;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in the (timestamp desc nulls last, id desc) transaction order:
+ * the key of the last row of a page. Encoded as an opaque URL-safe token.
+ * A null timestamp means the position is inside the trailing block of rows
+ * that have no timestamp.
+ */
+public final class TransactionCursor {
+    private final LocalDateTime timestamp;
+    private final long id;
+
+    public TransactionCursor(LocalDateTime timestamp, long id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    public static TransactionCursor after(Transaction last) {
+        return new TransactionCursor(last.getTimestamp(), last.getId());
+    }
+
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public long getId() { return id; }
+
+    public String encode() {
+        String raw = (timestamp == null ? "" : timestamp.toString()) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static TransactionCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            LocalDateTime ts = sep == 0 ? null : LocalDateTime.parse(raw.substring(0, sep));
+            return new TransactionCursor(ts, Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+}
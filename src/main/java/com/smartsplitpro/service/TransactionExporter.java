@@ -0,0 +1,73 @@
+package com.smartsplitpro.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartsplitpro.model.Transaction;
+import com.smartsplitpro.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Streams transaction listings to a response as a JSON array while the rows
+ * are read from a database cursor. Each row is detached once written, so heap
+ * use stays flat however large the table is.
+ */
+@Service
+public class TransactionExporter {
+    private final TransactionRepository transactionRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public TransactionExporter(TransactionRepository transactionRepository, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.transactionRepository = transactionRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write every transaction, newest first.
+     */
+    @Transactional(readOnly = true)
+    public long writeAll(OutputStream out) throws IOException {
+        try (Stream<Transaction> rows = transactionRepository.streamAll()) {
+            return write(rows, out);
+        }
+    }
+
+    /**
+     * Write the transactions owned by {@code username} (same rows as
+     * {@link TransactionService#listByUser(String)}), newest first.
+     */
+    @Transactional(readOnly = true)
+    public long writeOwnedBy(String username, OutputStream out) throws IOException {
+        String norm = username == null ? "" : username.trim().toLowerCase();
+        try (Stream<Transaction> rows = transactionRepository.streamOwnedBy(norm)) {
+            return write(rows, out);
+        }
+    }
+
+    private long write(Stream<Transaction> rows, OutputStream out) throws IOException {
+        long count = 0;
+        com.fasterxml.jackson.databind.ObjectWriter writer = objectMapper.writerFor(Transaction.class)
+                .without(com.fasterxml.jackson.databind.SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            // the servlet container owns the response stream
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartArray();
+            java.util.Iterator<Transaction> it = rows.iterator();
+            while (it.hasNext()) {
+                Transaction tx = it.next();
+                writer.writeValue(json, tx);
+                entityManager.detach(tx);
+                if (++count % 256 == 0) json.flush();
+            }
+            json.writeEndArray();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,387 @@
+package com.smartsplitpro.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartsplitpro.model.PersonalSettlement;
+import com.smartsplitpro.model.Transaction;
+import com.smartsplitpro.repository.PersonalSettlementRepository;
+import com.smartsplitpro.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk import of transactions from a CSV or NDJSON stream.
+ *
+ * Rows are parsed and validated one at a time as the body is read, so the
+ * input is never held in memory. Every {@code import.chunk-size} valid rows
+ * are committed in one database transaction:
+ * - transactions and their personal settlement entries are inserted with
+ *   saveAll, which Hibernate sends as JDBC batches;
+ * - the ledger applies the whole chunk once after commit (one version bump,
+ *   one {@link LedgerChangedEvent});
+ * - audit history is written in batches on the importing thread rather than
+ *   through the writer's queue, which a large import would overflow.
+ *
+ * Each row follows the rules of {@link TransactionService#addTransaction}:
+ * usernames are trimmed and lower-cased, a missing payer defaults to the
+ * importing user, who is also recorded as the creator, and a missing
+ * timestamp means now. Rows that fail validation are skipped and reported
+ * by line number; a failed chunk is reported and the import goes on with
+ * the next one.
+ *
+ * CSV needs a header row naming the columns (description, amount, payer or
+ * payerUsername, payee or payeeUsername, timestamp; in any order). NDJSON
+ * takes one object per line with the same field names.
+ */
+@Service
+public class TransactionImporter {
+    private static final Logger log = LoggerFactory.getLogger(TransactionImporter.class);
+    // rejected rows listed in the response; the rest are only counted
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_USERNAME_LENGTH = 255;
+
+    public enum Format {
+        CSV, NDJSON;
+
+        /**
+         * Format from an explicit {@code format} parameter, else from the
+         * request content type; null when neither names a known format.
+         */
+        public static Format detect(String format, String contentType) {
+            String f = format == null ? "" : format.trim().toLowerCase(Locale.ROOT);
+            if (f.equals("csv")) return CSV;
+            if (f.equals("ndjson") || f.equals("jsonl")) return NDJSON;
+            if (!f.isEmpty()) return null;
+            String ct = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+            if (ct.startsWith("text/csv")) return CSV;
+            if (ct.startsWith("application/x-ndjson") || ct.startsWith("application/jsonl")
+                    || ct.startsWith("application/json-lines")) return NDJSON;
+            return null;
+        }
+    }
+
+    private final TransactionRepository transactionRepository;
+    private final PersonalSettlementRepository personalSettlementRepository;
+    private final BalanceLedger balanceLedger;
+    private final AuditHistoryWriter auditHistoryWriter;
+    private final UserDirectory userDirectory;
+    private final ServiceMetrics serviceMetrics;
+    private final ApplicationEventPublisher events;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate chunkTx;
+    private final int chunkSize;
+
+    public TransactionImporter(TransactionRepository transactionRepository,
+                               PersonalSettlementRepository personalSettlementRepository,
+                               BalanceLedger balanceLedger,
+                               AuditHistoryWriter auditHistoryWriter,
+                               UserDirectory userDirectory,
+                               ServiceMetrics serviceMetrics,
+                               ApplicationEventPublisher events,
+                               ObjectMapper objectMapper,
+                               EntityManager entityManager,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${import.chunk-size:5000}") int chunkSize) {
+        this.transactionRepository = transactionRepository;
+        this.personalSettlementRepository = personalSettlementRepository;
+        this.balanceLedger = balanceLedger;
+        this.auditHistoryWriter = auditHistoryWriter;
+        this.userDirectory = userDirectory;
+        this.serviceMetrics = serviceMetrics;
+        this.events = events;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Import every row of {@code body} on behalf of {@code importedBy}. With
+     * {@code personalEntries} each row also gets the personal settlement entry
+     * addTransaction would create. Returns counts, elapsed time and the first
+     * rejected rows. An unusable CSV header throws IllegalArgumentException
+     * before anything is imported.
+     */
+    public Map<String, Object> importTransactions(Reader body, Format format, String importedBy, boolean personalEntries) {
+        return serviceMetrics.time("importTransactions", () -> run(body, format, UserDirectory.normalize(importedBy), personalEntries));
+    }
+
+    private Map<String, Object> run(Reader body, Format format, String importedBy, boolean personalEntries) {
+        try {
+            return read(body, format, importedBy, personalEntries);
+        } catch (IOException e) {
+            throw new java.io.UncheckedIOException("Could not read import body", e);
+        }
+    }
+
+    private Map<String, Object> read(Reader body, Format format, String importedBy, boolean personalEntries) throws IOException {
+        long started = System.nanoTime();
+        Result result = new Result();
+        List<Transaction> chunk = new ArrayList<>(chunkSize);
+        BufferedReader in = body instanceof BufferedReader ? (BufferedReader) body : new BufferedReader(body, 1 << 16);
+
+        String[] header = null;
+        long lineNo = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) continue;
+            if (format == Format.CSV && header == null) {
+                header = parseHeader(parseCsvLine(line));
+                continue;
+            }
+            Transaction tx;
+            try {
+                if (format == Format.CSV) {
+                    tx = fromCsv(header, parseCsvLine(line), importedBy);
+                } else {
+                    tx = fromJson(objectMapper.readTree(line), importedBy);
+                }
+            } catch (Exception e) {
+                result.reject(lineNo, e.getMessage());
+                continue;
+            }
+            chunk.add(tx);
+            if (chunk.size() == chunkSize) {
+                commitChunk(chunk, importedBy, personalEntries, result);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) commitChunk(chunk, importedBy, personalEntries, result);
+
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Imported {} transactions for {} in {} chunks ({} rejected, {} failed) in {} ms",
+                result.imported, importedBy, result.chunks, result.rejected, result.failed, elapsedMs);
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("status", "ok");
+        out.put("format", format.name().toLowerCase(Locale.ROOT));
+        out.put("lines", lineNo);
+        out.put("imported", result.imported);
+        out.put("rejected", result.rejected);
+        out.put("failed", result.failed);
+        out.put("chunks", result.chunks);
+        out.put("chunkSize", chunkSize);
+        out.put("elapsedMs", elapsedMs);
+        out.put("errors", result.errors);
+        return out;
+    }
+
+    private void commitChunk(List<Transaction> chunk, String importedBy, boolean personalEntries, Result result) {
+        try {
+            chunkTx.executeWithoutResult(status -> {
+                List<Transaction> saved = transactionRepository.saveAll(chunk);
+                if (personalEntries) savePersonalEntries(saved);
+                balanceLedger.recordAll(saved);
+            });
+            result.imported += chunk.size();
+            result.chunks++;
+            auditHistoryWriter.writeAll(chunk, "CREATED", importedBy);
+        } catch (Exception e) {
+            result.failed += chunk.size();
+            result.error("chunk " + (result.chunks + 1), "not imported: " + e.getMessage());
+            log.warn("Import chunk of {} rows failed: {}", chunk.size(), e.getMessage());
+        } finally {
+            // the request-scoped persistence context would otherwise keep every imported row
+            entityManager.clear();
+        }
+    }
+
+    private void savePersonalEntries(List<Transaction> saved) {
+        Set<String> payees = new HashSet<>();
+        for (Transaction t : saved) payees.add(t.getPayeeUsername());
+        Map<String, UserDirectory.Entry> directory = userDirectory.resolve(payees);
+        OffsetDateTime now = OffsetDateTime.now(ZoneId.systemDefault());
+        List<PersonalSettlement> entries = new ArrayList<>(saved.size());
+        Set<String> touched = new HashSet<>();
+        for (Transaction t : saved) {
+            PersonalSettlement entry = new PersonalSettlement(t.getPayerUsername(), t.getPayeeUsername(), t.getAmount(), now, false, t.getId());
+            UserDirectory.Entry payee = directory.get(t.getPayeeUsername());
+            entry.setRecipientRegistered(payee != null && payee.isRegistered());
+            entries.add(entry);
+            touched.add(t.getPayerUsername());
+            touched.add(t.getPayeeUsername());
+        }
+        personalSettlementRepository.saveAll(entries);
+        events.publishEvent(new PersonalSettlementsChangedEvent(touched));
+    }
+
+    // ------------------------------------------------------------------ rows
+
+    private Transaction fromCsv(String[] header, List<String> fields, String importedBy) {
+        Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < header.length && i < fields.size(); i++) {
+            if (header[i] != null) row.put(header[i], fields.get(i));
+        }
+        return toTransaction(row, importedBy);
+    }
+
+    private Transaction fromJson(JsonNode node, String importedBy) {
+        if (node == null || !node.isObject()) throw new IllegalArgumentException("expected a JSON object");
+        Map<String, String> row = new HashMap<>();
+        node.fields().forEachRemaining(e -> {
+            String column = column(e.getKey());
+            if (column != null && !e.getValue().isNull()) row.put(column, e.getValue().asText());
+        });
+        return toTransaction(row, importedBy);
+    }
+
+    private static String[] parseHeader(List<String> names) {
+        String[] header = new String[names.size()];
+        boolean hasAmount = false, hasPayee = false;
+        for (int i = 0; i < header.length; i++) {
+            header[i] = column(names.get(i));
+            if ("amount".equals(header[i])) hasAmount = true;
+            if ("payee".equals(header[i])) hasPayee = true;
+        }
+        if (!hasAmount || !hasPayee) throw new IllegalArgumentException("header must name at least the amount and payee columns");
+        return header;
+    }
+
+    // canonical column for a header or JSON field name, null if unknown
+    private static String column(String name) {
+        if (name == null) return null;
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "description": return "description";
+            case "amount": return "amount";
+            case "payer": case "payerusername": case "payer_username": return "payer";
+            case "payee": case "payeeusername": case "payee_username": return "payee";
+            case "timestamp": case "date": return "timestamp";
+            default: return null;
+        }
+    }
+
+    private static Transaction toTransaction(Map<String, String> row, String importedBy) {
+        String payer = username(row.get("payer"), "payer");
+        if (payer == null) payer = importedBy;
+        if (payer == null) throw new IllegalArgumentException("payer is missing");
+        String payee = username(row.get("payee"), "payee");
+        if (payee == null) throw new IllegalArgumentException("payee is missing");
+        if (payer.equals(payee)) throw new IllegalArgumentException("payer and payee are the same user");
+
+        String rawAmount = row.get("amount");
+        if (rawAmount == null || rawAmount.isBlank()) throw new IllegalArgumentException("amount is missing");
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(rawAmount.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("amount '" + rawAmount + "' is not a number");
+        }
+        if (amount.signum() <= 0) throw new IllegalArgumentException("amount must be positive");
+        if (amount.stripTrailingZeros().scale() > 2) throw new IllegalArgumentException("amount has more than two decimals");
+
+        Transaction tx = new Transaction();
+        tx.setDescription(row.getOrDefault("description", ""));
+        tx.setAmount(amount);
+        tx.setPayerUsername(payer);
+        tx.setPayeeUsername(payee);
+        tx.setCreatedBy(importedBy);
+        tx.setTimestamp(timestamp(row.get("timestamp")));
+        return tx;
+    }
+
+    private static String username(String raw, String field) {
+        if (raw == null || raw.isBlank()) return null;
+        String norm = raw.trim().toLowerCase(Locale.ROOT);
+        if (norm.length() > MAX_USERNAME_LENGTH) throw new IllegalArgumentException(field + " is too long");
+        for (int i = 0; i < norm.length(); i++) {
+            if (Character.isWhitespace(norm.charAt(i)) || Character.isISOControl(norm.charAt(i))) {
+                throw new IllegalArgumentException(field + " '" + raw.trim() + "' contains whitespace");
+            }
+        }
+        return norm;
+    }
+
+    private static LocalDateTime timestamp(String raw) {
+        if (raw == null || raw.isBlank()) return LocalDateTime.now();
+        String t = raw.trim();
+        try {
+            if (t.length() == 10) return LocalDate.parse(t).atStartOfDay();
+            if (t.endsWith("Z") || t.matches(".*[+-]\\d\\d:\\d\\d$")) {
+                return OffsetDateTime.parse(t).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            }
+            return LocalDateTime.parse(t);
+        } catch (java.time.format.DateTimeParseException e) {
+            throw new IllegalArgumentException("timestamp '" + t + "' is not an ISO date or date-time");
+        }
+    }
+
+    /**
+     * Split one CSV record into fields. Fields may be quoted with double
+     * quotes ("" inside quotes is a literal quote); records span one line.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) throw new IllegalArgumentException("unterminated quoted field");
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static final class Result {
+        long imported;
+        long rejected;
+        long failed;
+        int chunks;
+        final List<Map<String, Object>> errors = new ArrayList<>();
+
+        void reject(long line, String message) {
+            rejected++;
+            error("line " + line, message);
+        }
+
+        void error(String where, String message) {
+            if (errors.size() >= MAX_REPORTED_ERRORS) return;
+            Map<String, Object> e = new LinkedHashMap<>();
+            e.put("at", where);
+            e.put("message", message);
+            errors.add(e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.Transaction;
+
+import java.util.function.Consumer;
+
+/**
+ * A pass over the transactions table, one row at a time. Used by
+ * {@link BalanceLedger} for rebuilds, audits and checkpoint tail replay
+ * instead of loading every row with findAll.
+ */
+@FunctionalInterface
+public interface TransactionScanner {
+
+    /**
+     * Hand every transaction with an id above {@code afterId} to
+     * {@code action} in id order and return how many there were. The rows
+     * are detached; {@code action} must not keep them if memory use is to
+     * stay flat.
+     */
+    long forEachTransaction(long afterId, Consumer<Transaction> action);
+
+    /**
+     * Every transaction; ids start at 1.
+     */
+    default long forEachTransaction(Consumer<Transaction> action) {
+        return forEachTransaction(0L, action);
+    }
+}
@@ -5,6 +5,8 @@ import com.smartsplitpro.model.Transaction;
 import com.smartsplitpro.repository.TransactionRepository;
 import com.smartsplitpro.repository.TransactionHistoryRepository;
 import com.smartsplitpro.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -15,6 +17,8 @@ import java.util.stream.Collectors;
 
 @Service
 public class TransactionService {
+    private static final Logger log = LoggerFactory.getLogger(TransactionService.class);
+
     private final TransactionRepository transactionRepository;
     private final TransactionHistoryRepository historyRepository;
     private final com.smartsplitpro.repository.PersonalSettlementRepository personalSettlementRepository;
@@ -24,9 +28,27 @@ public class TransactionService {
     // or future features need them.
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-
-    public TransactionService(TransactionRepository transactionRepository, UserRepository userRepository, TransactionHistoryRepository historyRepository, com.smartsplitpro.repository.PersonalSettlementRepository personalSettlementRepository, PasswordEncoder passwordEncoder) {
+    private final BalanceLedger balanceLedger;
+    private final BalanceAggregator balanceAggregator;
+    private final LedgerCheckpoints ledgerCheckpoints;
+    private final SettlementPlanner settlementPlanner;
+    private final AuditHistoryWriter auditHistoryWriter;
+    private final HistoryParticipants historyParticipants;
+    private final UserDirectory userDirectory;
+    private final org.springframework.context.ApplicationEventPublisher events;
+    private final ServiceMetrics serviceMetrics;
+
+    public TransactionService(TransactionRepository transactionRepository, UserRepository userRepository, TransactionHistoryRepository historyRepository, com.smartsplitpro.repository.PersonalSettlementRepository personalSettlementRepository, PasswordEncoder passwordEncoder, BalanceLedger balanceLedger, SettlementPlanner settlementPlanner, AuditHistoryWriter auditHistoryWriter, HistoryParticipants historyParticipants, UserDirectory userDirectory, org.springframework.context.ApplicationEventPublisher events, ServiceMetrics serviceMetrics, BalanceAggregator balanceAggregator, LedgerCheckpoints ledgerCheckpoints) {
         this.transactionRepository = transactionRepository;
+        this.ledgerCheckpoints = ledgerCheckpoints;
+        this.balanceAggregator = balanceAggregator;
+        this.serviceMetrics = serviceMetrics;
+        this.events = events;
+        this.userDirectory = userDirectory;
+        this.auditHistoryWriter = auditHistoryWriter;
+        this.historyParticipants = historyParticipants;
+        this.balanceLedger = balanceLedger;
+        this.settlementPlanner = settlementPlanner;
         this.userRepository = userRepository;
         this.historyRepository = historyRepository;
         this.personalSettlementRepository = personalSettlementRepository;
@@ -47,6 +69,10 @@ public class TransactionService {
      */
     @Transactional
     public Transaction addTransaction(Transaction tx, boolean createPersonalEntries) {
+        return serviceMetrics.time("addTransaction", () -> saveTransaction(tx, createPersonalEntries));
+    }
+
+    private Transaction saveTransaction(Transaction tx, boolean createPersonalEntries) {
         // Do not create placeholder User records when saving transactions. Transactions
         // store payer/payee as plain usernames (strings). Creating placeholder users
         // can cause newly-registered accounts to inherit previous history. To keep
@@ -79,18 +105,23 @@ public class TransactionService {
 
         if (tx.getTimestamp() == null) tx.setTimestamp(java.time.LocalDateTime.now());
 
+        // no explicit flush: the insert goes out with the commit, batched with the personal entry
         Transaction saved = transactionRepository.save(tx);
-        // Force flush to reduce any lag before subsequent read endpoints see the new row
-        try { transactionRepository.flush(); } catch (Exception ignored) {}
-        try {
-            System.out.println("[DEBUG] transaction count after save=" + transactionRepository.count());
-        } catch (Exception ignored) {}
+        // count() is a full table query; only pay for it when someone reads the line
+        if (log.isDebugEnabled()) {
+            try {
+                log.debug("transaction count after save={}", transactionRepository.count());
+            } catch (Exception ignored) {}
+        }
         // record history
         recordHistory(saved, "CREATED");
+        balanceLedger.record(saved);
 
-        try {
-            System.out.println("[DEBUG] addTransaction saved id=" + (saved.getId()==null?"null":saved.getId()) + " payer=" + saved.getPayerUsername() + " payee=" + saved.getPayeeUsername() + " amt=" + saved.getAmount() + " createdBy=" + saved.getCreatedBy() + " createPersonal=" + createPersonalEntries + " authUser=" + authUser);
-        } catch (Exception ignored) {}
+        if (log.isDebugEnabled()) {
+            log.debug("addTransaction saved id={} payer={} payee={} amt={} createdBy={} createPersonal={} authUser={}",
+                    saved.getId(), saved.getPayerUsername(), saved.getPayeeUsername(), saved.getAmount(),
+                    saved.getCreatedBy(), createPersonalEntries, authUser);
+        }
 
         if (createPersonalEntries) {
             // Automatically create personal settlement entries for both payer and payee
@@ -107,9 +138,10 @@ public class TransactionService {
                             new com.smartsplitpro.model.PersonalSettlement(payer, payee, amount, now, false, saved.getId());
                     entry.setRecipientRegistered(payeeRegistered);
                     personalSettlementRepository.save(entry);
+                    personalSettlementsChanged(payer, payee);
                 }
             } catch (Exception e) {
-                System.out.println("Failed to create personal settlement entries for transaction: " + e.getMessage());
+                log.warn("Failed to create personal settlement entries for transaction {}: {}", saved.getId(), e.getMessage());
                 // Don't fail the transaction creation if personal entries fail
             }
         }
@@ -119,78 +151,69 @@ public class TransactionService {
 
     public List<Transaction> listAll() {
         List<Transaction> all = transactionRepository.findAll();
-        try {
-            System.out.println("[DEBUG] listAll count=" + (all == null ? 0 : all.size()));
-        } catch (Exception ignored) {}
+        log.debug("listAll count={}", all == null ? 0 : all.size());
         return all;
     }
 
     public List<Transaction> listByUser(String username) {
         if (username == null) return java.util.Collections.emptyList();
         String norm = username.trim().toLowerCase();
+        if (norm.isEmpty()) return java.util.Collections.emptyList();
 
-        java.util.Set<Long> seen = new java.util.LinkedHashSet<>();
-        java.util.List<Transaction> result = new java.util.ArrayList<>();
-
-        java.util.function.Consumer<java.util.List<Transaction>> merge = list -> {
-            if (list == null || list.isEmpty()) return;
-            for (Transaction t : list) {
-                if (t == null) continue;
-                Long id = t.getId();
-                if (id != null) {
-                    if (seen.add(id)) result.add(t);
-                } else {
-                    result.add(t);
-                }
-            }
-        };
+        // usernames are stored normalized, so one indexed lookup on created_by
+        // (or payer_username for rows without a creator) covers every owned row
+        List<Transaction> result = serviceMetrics.time("listByUser", () -> transactionRepository.findOwnedBy(norm));
 
-        try { merge.accept(transactionRepository.findByPayerUsernameOrPayeeUsername(norm, norm)); } catch (Exception ignored) {}
-        try { merge.accept(transactionRepository.findByPayerUsernameIgnoreCaseOrPayeeUsernameIgnoreCase(norm, norm)); } catch (Exception ignored) {}
-        try { merge.accept(transactionRepository.findByCreatedBy(norm)); } catch (Exception ignored) {}
-        try { merge.accept(transactionRepository.findByCreatedByIgnoreCase(norm)); } catch (Exception ignored) {}
+        log.debug("listByUser({}) size={}", norm, result.size());
+        return result;
+    }
 
-        if (result.isEmpty()) {
-            // Fallback: fetch all and manually filter when repository methods return nothing
-            try {
-                java.util.List<Transaction> globals = transactionRepository.findAll();
-                if (globals != null) {
-                    for (Transaction t : globals) {
-                        if (t == null) continue;
-                        String payer = t.getPayerUsername() == null ? null : t.getPayerUsername().trim().toLowerCase();
-                        String payee = t.getPayeeUsername() == null ? null : t.getPayeeUsername().trim().toLowerCase();
-                        String creator = t.getCreatedBy() == null ? null : t.getCreatedBy().trim().toLowerCase();
-                        if (norm.equals(payer) || norm.equals(payee) || norm.equals(creator)) {
-                            Long id = t.getId();
-                            if (id != null) {
-                                if (seen.add(id)) result.add(t);
-                            } else {
-                                result.add(t);
-                            }
-                        }
-                    }
-                }
-            } catch (Exception ignored) {}
-        }
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
 
-        result.removeIf(java.util.Objects::isNull);
-        result.removeIf(t -> {
-            String creator = t.getCreatedBy() == null ? null : t.getCreatedBy().trim().toLowerCase();
-            if (creator != null && !creator.isBlank()) {
-                return !creator.equals(norm);
-            }
-            String payer = t.getPayerUsername() == null ? null : t.getPayerUsername().trim().toLowerCase();
-            return payer == null || !payer.equals(norm);
-        });
+    /**
+     * Keyset-paginated listing of all transactions, newest first. {@code cursor}
+     * is the {@code nextCursor} of the previous page (null for the first page).
+     */
+    public com.smartsplitpro.model.TransactionPage pageAll(String cursor, Integer limit) {
+        return page(null, cursor, limit);
+    }
 
-        // MANUAL SORTING: Sort transactions by timestamp (descending - most recent first)
-        // Using Bubble Sort for educational purposes (can also use Quick Sort or Merge Sort)
-        bubbleSortTransactionsByTimestamp(result);
+    /**
+     * Keyset-paginated listing of the rows {@link #listByUser(String)} returns.
+     */
+    public com.smartsplitpro.model.TransactionPage pageByUser(String username, String cursor, Integer limit) {
+        String norm = username == null ? "" : username.trim().toLowerCase();
+        if (norm.isEmpty()) return new com.smartsplitpro.model.TransactionPage(java.util.Collections.emptyList(), null, pageSize(limit));
+        return page(norm, cursor, limit);
+    }
 
-        try {
-            System.out.println("[DEBUG] listByUser(" + norm + ") size=" + result.size());
-        } catch (Exception ignored) {}
-        return result;
+    private com.smartsplitpro.model.TransactionPage page(String owner, String cursor, Integer limit) {
+        int size = pageSize(limit);
+        // fetch one extra row to learn whether another page follows
+        org.springframework.data.domain.Pageable window = org.springframework.data.domain.PageRequest.ofSize(size + 1);
+        TransactionCursor after = cursor == null || cursor.isBlank() ? null : TransactionCursor.decode(cursor);
+        List<Transaction> rows;
+        if (after == null) {
+            rows = owner == null ? transactionRepository.findPage(window) : transactionRepository.findOwnedPage(owner, window);
+        } else if (after.getTimestamp() == null) {
+            rows = owner == null ? transactionRepository.findPageAfterUntimed(after.getId(), window)
+                    : transactionRepository.findOwnedPageAfterUntimed(owner, after.getId(), window);
+        } else {
+            rows = owner == null ? transactionRepository.findPageAfter(after.getTimestamp(), after.getId(), window)
+                    : transactionRepository.findOwnedPageAfter(owner, after.getTimestamp(), after.getId(), window);
+        }
+        String next = null;
+        if (rows.size() > size) {
+            rows = new ArrayList<>(rows.subList(0, size));
+            next = TransactionCursor.after(rows.get(size - 1)).encode();
+        }
+        return new com.smartsplitpro.model.TransactionPage(rows, next, size);
+    }
+
+    private static int pageSize(Integer limit) {
+        if (limit == null || limit <= 0) return DEFAULT_PAGE_SIZE;
+        return Math.min(limit, MAX_PAGE_SIZE);
     }
 
     public Optional<Transaction> findById(Long id) {
@@ -202,89 +225,57 @@ public class TransactionService {
         }
     }
 
+    /**
+     * Global net balances served from the in-memory {@link BalanceLedger}
+     * instead of scanning the transactions table on every request. When the
+     * ledger is disabled or not built yet they are summed by the database.
+     */
     public List<Balance> computeBalances() {
-        List<Transaction> txs = transactionRepository.findAll();
-
-        // MANUAL HASH MAP - Using custom implementation instead of built-in HashMap
-        SimpleHashMap<String, BigDecimal> map = new SimpleHashMap<>();
-
-        for (Transaction tx : txs) {
-            String payer = tx.getPayerUsername();
-            String payee = tx.getPayeeUsername();
-            BigDecimal amt = tx.getAmount() == null ? BigDecimal.ZERO : tx.getAmount();
-
-            if (payer == null || payer.isBlank()) continue;
-            if (payee == null || payee.isBlank()) continue;
-
-            // payer paid amount; payee owes that amount (for simplicity)
-            BigDecimal payerBalance = map.get(payer);
-            if (payerBalance == null) payerBalance = BigDecimal.ZERO;
-            map.put(payer, payerBalance.add(amt));
-
-            BigDecimal payeeBalance = map.get(payee);
-            if (payeeBalance == null) payeeBalance = BigDecimal.ZERO;
-            map.put(payee, payeeBalance.subtract(amt));
-        }
+        List<Balance> result = serviceMetrics.time("computeBalances",
+                () -> useLedger() ? balanceLedger.balances() : balanceAggregator.balances());
+        log.debug("computeBalances users={}", result.size());
+        // the full dump is only built at trace level
+        if (log.isTraceEnabled()) log.trace("computeBalances {}", balancesToString(result));
+        return result;
+    }
 
-        try {
-            System.out.println("[DEBUG] computeBalances totals=" + map);
-        } catch (Exception ignored) {}
+    // a cold ledger would make the caller wait for a full rebuild; the GROUP BY path needs no entities
+    private boolean useLedger() {
+        return balanceLedger.isEnabled() && balanceLedger.isReady();
+    }
 
-        // Convert manual hash map to List<Balance>
-        List<Balance> result = new ArrayList<>();
-        for (String key : map.keys()) {
-            result.add(new Balance(key, map.get(key)));
+    private static String balancesToString(List<Balance> balances) {
+        StringBuilder sb = new StringBuilder();
+        for (Balance b : balances) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(b.getUsername()).append('=').append(b.getBalance());
         }
-        return result;
+        return sb.toString();
     }
 
     /**
      * Compute balances limited to transactions that involve the specified username.
      * This returns a list of Balance objects for the user and any counterparties
      * they've transacted with. Useful for powering per-user views without exposing
-     * global balances.
+     * global balances. The ledger keeps these per-user views up to date, using the
+     * same ownership rule as {@link #listByUser(String)}.
      */
     public List<Balance> computeBalancesForUser(String username) {
         if (username == null) return java.util.Collections.emptyList();
         String norm = username.trim().toLowerCase();
-        List<Transaction> txs = listByUser(username);
-        if (txs == null || txs.isEmpty()) return java.util.Collections.emptyList();
-
-        // MANUAL HASH MAP - Using custom implementation
-        SimpleHashMap<String, BigDecimal> map = new SimpleHashMap<>();
-
-        for (Transaction tx : txs) {
-            if (tx == null) continue;
-            String payer = tx.getPayerUsername();
-            String payee = tx.getPayeeUsername();
-            BigDecimal amt = tx.getAmount() == null ? BigDecimal.ZERO : tx.getAmount();
-
-            if (payer == null || payee == null) continue;
-
-            // payer paid amount; payee owes that amount (for simplicity)
-            BigDecimal payerBalance = map.get(payer);
-            if (payerBalance == null) payerBalance = BigDecimal.ZERO;
-            map.put(payer, payerBalance.add(amt));
-
-            BigDecimal payeeBalance = map.get(payee);
-            if (payeeBalance == null) payeeBalance = BigDecimal.ZERO;
-            map.put(payee, payeeBalance.subtract(amt));
-        }
-
-        if (map.size() == 0) return java.util.Collections.emptyList();
-
-        try {
-            System.out.println("[DEBUG] computeBalancesForUser(" + norm + ")=" + map);
-        } catch (Exception ignored) {}
-
-        // Convert manual hash map to List<Balance>
-        List<Balance> result = new ArrayList<>();
-        for (String key : map.keys()) {
-            result.add(new Balance(key, map.get(key)));
-        }
+        List<Balance> result = serviceMetrics.time("computeBalancesForUser",
+                () -> useLedger() ? balanceLedger.balancesForOwner(norm) : balanceAggregator.balancesForOwner(norm));
+        log.debug("computeBalancesForUser({}) users={}", norm, result.size());
         return result;
     }
 
+    /**
+     * Compare the in-memory ledger against a full recompute from the transactions table.
+     */
+    public java.util.Map<String, Object> verifyBalanceLedger() {
+        return balanceLedger.verify();
+    }
+
     @SuppressWarnings("unused")
     private List<Transaction> buildTransactionsFromPersonal(String username) {
         if (username == null) return java.util.Collections.emptyList();
@@ -356,86 +347,43 @@ public class TransactionService {
     }
 
     public List<String> optimizeSettlements() {
-       
-        List<Balance> balances = computeBalances();
-
-        // MANUAL IMPLEMENTATION: Separate positives and negatives
-        List<Balance> positives = new ArrayList<>();
-        List<Balance> negatives = new ArrayList<>();
-        
-        for (Balance b : balances) {
-            if (b.getBalance().compareTo(BigDecimal.ZERO) > 0) {
-                positives.add(b);
-            } else if (b.getBalance().compareTo(BigDecimal.ZERO) < 0) {
-                negatives.add(b);
-            }
-        }
-        
-        // MANUAL QUICK SORT: Sort positives in descending order
-        quickSortBalancesDescending(positives, 0, positives.size() - 1);
-        
-        // MANUAL QUICK SORT: Sort negatives in ascending order (most negative first)
-        quickSortBalancesAscending(negatives, 0, negatives.size() - 1);
-
-        List<String> instructions = new ArrayList<>();
-
-        int i = 0, j = 0;
-        while (i < positives.size() && j < negatives.size()) {
-            Balance pos = positives.get(i);
-            Balance neg = negatives.get(j);
-            BigDecimal owe = pos.getBalance().min(neg.getBalance().abs());
-
-            instructions.add(String.format("%s receives %s from %s", pos.getUsername(), owe, neg.getUsername()));
-
-            pos.setBalance(pos.getBalance().subtract(owe));
-            neg.setBalance(neg.getBalance().add(owe));
+        return optimizeSettlements(null, null);
+    }
 
-            if (pos.getBalance().compareTo(BigDecimal.ZERO) == 0) i++;
-            if (neg.getBalance().compareTo(BigDecimal.ZERO) == 0) j++;
+    public List<String> optimizeSettlements(SettlementEngineType engine, Long budgetMs) {
+        List<com.smartsplitpro.model.Settlement> edges = computeSettlements(engine, budgetMs);
+        List<String> instructions = new ArrayList<>(edges.size());
+        for (com.smartsplitpro.model.Settlement s : edges) {
+            instructions.add(String.format("%s receives %s from %s", s.getTo(), s.getAmount(), s.getFrom()));
         }
-
         return instructions;
     }
 
-    // Compute structured settlements (from -> to -> amount) to drive a network graph
+    // Compute structured settlements (from -> to -> amount) to drive a network graph.
+    // The plan is cached per ledger version, so repeated calls between writes are served from memory.
     public List<com.smartsplitpro.model.Settlement> computeSettlements() {
-        List<Balance> balances = computeBalances();
-
-        // MANUAL IMPLEMENTATION: Separate positives and negatives
-        List<Balance> positives = new ArrayList<>();
-        List<Balance> negatives = new ArrayList<>();
-        
-        for (Balance b : balances) {
-            if (b.getBalance().compareTo(java.math.BigDecimal.ZERO) > 0) {
-                positives.add(b);
-            } else if (b.getBalance().compareTo(java.math.BigDecimal.ZERO) < 0) {
-                negatives.add(b);
-            }
-        }
-        
-        // MANUAL QUICK SORT: Sort using manual implementation
-        quickSortBalancesDescending(positives, 0, positives.size() - 1);
-        quickSortBalancesAscending(negatives, 0, negatives.size() - 1);
-
-        List<com.smartsplitpro.model.Settlement> edges = new ArrayList<>();
-
-        int i = 0, j = 0;
-        while (i < positives.size() && j < negatives.size()) {
-            Balance pos = positives.get(i);
-            Balance neg = negatives.get(j);
-            java.math.BigDecimal owe = pos.getBalance().min(neg.getBalance().abs());
+        return serviceMetrics.time("computeSettlements", () -> settlementPlanner.plan());
+    }
 
-            // neg owes owe to pos
-            edges.add(new com.smartsplitpro.model.Settlement(neg.getUsername(), pos.getUsername(), owe));
+    // Plan for a snapshot the caller already holds, so it matches balances read from the same snapshot
+    public List<com.smartsplitpro.model.Settlement> computeSettlements(BalanceLedger.Snapshot snapshot) {
+        return serviceMetrics.time("computeSettlements", () -> settlementPlanner.plan(snapshot));
+    }
 
-            pos.setBalance(pos.getBalance().subtract(owe));
-            neg.setBalance(neg.getBalance().add(owe));
+    /**
+     * Settlements computed with a specific engine: greedy, or exact (fewest transfers)
+     * bounded by {@code budgetMs}. Null arguments fall back to the configured defaults.
+     */
+    public List<com.smartsplitpro.model.Settlement> computeSettlements(SettlementEngineType engine, Long budgetMs) {
+        return serviceMetrics.time("computeSettlements", () -> settlementPlanner.plan(engine, budgetMs));
+    }
 
-            if (pos.getBalance().compareTo(java.math.BigDecimal.ZERO) == 0) i++;
-            if (neg.getBalance().compareTo(java.math.BigDecimal.ZERO) == 0) j++;
-        }
+    public SettlementEngineType parseSettlementEngine(String engine) {
+        return SettlementEngineType.parse(engine, settlementPlanner.getDefaultEngine());
+    }
 
-        return edges;
+    public java.util.Map<String, Object> settlementCacheStats() {
+        return settlementPlanner.stats();
     }
 
     @Transactional
@@ -443,43 +391,37 @@ public class TransactionService {
         if (id == null) return;
         // record the transaction payload before deletion if exists
         Optional<Transaction> ex = transactionRepository.findById(id);
-        ex.ifPresent(t -> recordHistory(t, "DELETED"));
+        ex.ifPresent(t -> {
+            recordHistory(t, "DELETED");
+            balanceLedger.revert(t);
+        });
         // let repository throw an exception if id doesn't exist; transaction ensures consistency
         transactionRepository.deleteById(id);
+        // a checkpoint that still counts the row must not be restored after a crash
+        ledgerCheckpoints.invalidateCovering(id);
         try {
             personalSettlementRepository.deleteAllByTransactionId(id);
+            ex.ifPresent(t -> personalSettlementsChanged(t.getPayerUsername(), t.getPayeeUsername()));
         } catch (Exception e) {
-            System.out.println("Failed to prune personal settlements for transaction " + id + ": " + e.getMessage());
+            log.warn("Failed to prune personal settlements for transaction {}: {}", id, e.getMessage());
         }
     }
 
+    // Notification digests of both users are dropped once the surrounding transaction commits
+    private void personalSettlementsChanged(String fromUser, String toUser) {
+        java.util.Set<String> users = new java.util.HashSet<>();
+        if (fromUser != null) users.add(fromUser);
+        if (toUser != null) users.add(toUser);
+        events.publishEvent(new PersonalSettlementsChangedEvent(users));
+    }
+
+    // History rows are written asynchronously in batches once the surrounding transaction commits
     private void recordHistory(Transaction tx, String action) {
         try {
-            // include the original transaction timestamp plus a recordedAt timestamp with offset
-            java.time.OffsetDateTime recordedAt = java.time.OffsetDateTime.now(java.time.ZoneId.systemDefault());
-            String txTs = tx.getTimestamp() == null ? null : tx.getTimestamp().toString();
-        String payload = String.format(
-            "{\"id\":%s,\"payerUsername\":\"%s\",\"payeeUsername\":\"%s\",\"amount\":%s,\"description\":\"%s\",\"timestamp\":%s,\"createdBy\":\"%s\",\"recordedAt\":\"%s\"}",
-                    tx.getId()==null?"null":tx.getId().toString(),
-                    tx.getPayerUsername()==null?"":tx.getPayerUsername(),
-                    tx.getPayeeUsername()==null?"":tx.getPayeeUsername(),
-                    tx.getAmount()==null?"0":tx.getAmount().toString(),
-                    tx.getDescription()==null?"":tx.getDescription().replace("\"","\\\""),
-                    txTs==null?"null":"\""+txTs+"\"",
-            tx.getCreatedBy()==null?"":tx.getCreatedBy(),
-                    recordedAt.toString());
-
-            String performedBy = null;
-            try {
-                org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
-                if (auth != null) performedBy = auth.getName();
-            } catch (Exception ignored) {}
-
-            com.smartsplitpro.model.TransactionHistory h = new com.smartsplitpro.model.TransactionHistory(tx.getId(), action, payload, performedBy, recordedAt);
-            historyRepository.save(h);
+            serviceMetrics.time("recordHistory", () -> auditHistoryWriter.record(tx, action));
         } catch (Exception e) {
-            // swallow to avoid failing main operation; log to stdout
-            System.out.println("Failed to record history: " + e.getMessage());
+            // swallow to avoid failing main operation
+            log.warn("Failed to record history: {}", e.getMessage());
         }
     }
 
@@ -487,6 +429,29 @@ public class TransactionService {
         return historyRepository.findAll(org.springframework.data.domain.Sort.by(org.springframework.data.domain.Sort.Direction.DESC, "timestamp"));
     }
 
+    /**
+     * History entries that name {@code username} (as performer, payer, payee,
+     * creator or snapshot participant), newest first, via the participant index.
+     * A null {@code size} returns all of them.
+     */
+    public java.util.List<com.smartsplitpro.model.TransactionHistory> listHistoryForUser(String username, Integer page, Integer size) {
+        if (username == null) return java.util.Collections.emptyList();
+        return historyRepository.findByParticipant(username, historyPage(page, size));
+    }
+
+    /**
+     * Personal settlement snapshots saved by {@code username} (all users' when null), newest first.
+     */
+    public java.util.List<com.smartsplitpro.model.TransactionHistory> listPersonalSnapshots(String username, Integer page, Integer size) {
+        if (username == null) return historyRepository.findByActionOrderByTimestampDescIdDesc("PERSONAL_SETTLEMENT", historyPage(page, size));
+        return historyRepository.findByActionAndPerformedByOrderByTimestampDescIdDesc("PERSONAL_SETTLEMENT", username, historyPage(page, size));
+    }
+
+    private static org.springframework.data.domain.Pageable historyPage(Integer page, Integer size) {
+        if (size == null || size <= 0) return org.springframework.data.domain.Pageable.unpaged();
+        return org.springframework.data.domain.PageRequest.of(page == null ? 0 : Math.max(0, page), Math.min(size, MAX_PAGE_SIZE));
+    }
+
     @Transactional
     public com.smartsplitpro.model.TransactionHistory savePersonalSettlementSnapshot(String username) {
         return savePersonalSettlementSnapshot(username, false);
@@ -536,20 +501,32 @@ public class TransactionService {
         String payload = sb.toString();
         com.smartsplitpro.model.TransactionHistory h = new com.smartsplitpro.model.TransactionHistory(null, "PERSONAL_SETTLEMENT", payload, username, now);
         com.smartsplitpro.model.TransactionHistory saved = historyRepository.save(h);
+        java.util.List<com.smartsplitpro.model.HistoryParticipant> participants = new java.util.ArrayList<>();
+        HistoryParticipants.add(participants, saved.getId(), username, com.smartsplitpro.model.HistoryParticipant.PERFORMER);
+        HistoryParticipants.add(participants, saved.getId(), username, com.smartsplitpro.model.HistoryParticipant.OWNER);
+        for (com.smartsplitpro.model.Settlement s : personal) {
+            HistoryParticipants.add(participants, saved.getId(), s.getFrom(), com.smartsplitpro.model.HistoryParticipant.COUNTERPARTY);
+            HistoryParticipants.add(participants, saved.getId(), s.getTo(), com.smartsplitpro.model.HistoryParticipant.COUNTERPARTY);
+        }
+        historyParticipants.saveAll(participants);
 
-        // Also persist individual personal settlement entries for notifications
+        // Also persist individual personal settlement entries for notifications,
+        // in one saveAll so they go out as a JDBC batch
         try {
+            java.util.List<com.smartsplitpro.model.PersonalSettlement> entries = new java.util.ArrayList<>();
             for (com.smartsplitpro.model.Settlement s : personal) {
                 // we only saved settlements that involved the user earlier; ensure we also persist entries
                 com.smartsplitpro.model.Settlement entry = s;
                 if (entry.getFrom() != null && entry.getTo() != null && entry.getAmount() != null) {
                     com.smartsplitpro.model.PersonalSettlement ps = new com.smartsplitpro.model.PersonalSettlement(entry.getFrom(), entry.getTo(), entry.getAmount(), now, notifyOnly);
                     ps.setRecipientRegistered(isRegistered(entry.getTo()));
-                    personalSettlementRepository.save(ps);
+                    entries.add(ps);
                 }
             }
+            personalSettlementRepository.saveAll(entries);
+            for (com.smartsplitpro.model.PersonalSettlement ps : entries) personalSettlementsChanged(ps.getFromUser(), ps.getToUser());
         } catch (Exception ex) {
-            System.out.println("Failed to save personal settlement entries: " + ex.getMessage());
+            log.warn("Failed to save personal settlement entries: {}", ex.getMessage());
         }
 
         return saved;
@@ -570,9 +547,11 @@ public class TransactionService {
             java.time.OffsetDateTime now = java.time.OffsetDateTime.now(java.time.ZoneId.systemDefault());
             com.smartsplitpro.model.PersonalSettlement ps = new com.smartsplitpro.model.PersonalSettlement(fromUser, toUser, amount == null ? java.math.BigDecimal.ZERO : amount, now, true, transactionId);
             ps.setRecipientRegistered(isRegistered(toUser));
-            return personalSettlementRepository.save(ps);
+            com.smartsplitpro.model.PersonalSettlement saved = personalSettlementRepository.save(ps);
+            personalSettlementsChanged(fromUser, toUser);
+            return saved;
         } catch (Exception e) {
-            System.out.println("Failed to create notify-only personal entry: " + e.getMessage());
+            log.warn("Failed to create notify-only personal entry: {}", e.getMessage());
             return null;
         }
     }
@@ -591,6 +570,20 @@ public class TransactionService {
     // Instead of showing: "You paid A $50", "B paid you $30", "You paid C $20"
     // Show optimized: "Pay A $40 (this settles everything with A, B, C)"
     public java.util.Map<String, java.util.List<com.smartsplitpro.model.PersonalSettlement>> listPersonalNotifications(String username) {
+        return listPersonalNotifications(username, null);
+    }
+
+    /**
+     * Notifications derived from {@code optimizedSettlements}, a plan the
+     * caller already holds; null runs the optimizer for the current ledger.
+     */
+    public java.util.Map<String, java.util.List<com.smartsplitpro.model.PersonalSettlement>> listPersonalNotifications(String username,
+            List<com.smartsplitpro.model.Settlement> optimizedSettlements) {
+        return serviceMetrics.time("listPersonalNotifications", () -> buildPersonalNotifications(username, optimizedSettlements));
+    }
+
+    private java.util.Map<String, java.util.List<com.smartsplitpro.model.PersonalSettlement>> buildPersonalNotifications(String username,
+            List<com.smartsplitpro.model.Settlement> optimizedSettlements) {
         java.util.Map<String, java.util.List<com.smartsplitpro.model.PersonalSettlement>> result = new java.util.HashMap<>();
         if (username == null) {
             result.put("owe", java.util.Collections.emptyList());
@@ -599,33 +592,39 @@ public class TransactionService {
         }
 
         // STEP 1: Run greedy optimization to get optimal settlements
-        List<com.smartsplitpro.model.Settlement> optimizedSettlements = computeSettlements();
+        if (optimizedSettlements == null) optimizedSettlements = computeSettlements();
         
-        // STEP 2: Get already settled entries from database to exclude them
-        java.util.List<com.smartsplitpro.model.PersonalSettlement> settledEntries = 
-            personalSettlementRepository.findByFromUserOrToUserOrderByCreatedAtDesc(username, username)
-                .stream()
-                .filter(ps -> ps != null && ps.isSettled())
-                .collect(java.util.stream.Collectors.toList());
+        // STEP 2: Get already settled entries from database to exclude them,
+        // hashed on (from, to, cents) so each settlement is checked in O(1)
+        java.util.Set<String> settledKeys = new java.util.HashSet<>();
+        for (com.smartsplitpro.model.PersonalSettlement ps : personalSettlementRepository.findSettledInvolving(username)) {
+            if (ps == null || ps.getFromUser() == null || ps.getToUser() == null || ps.getAmount() == null) continue;
+            settledKeys.add(settledKey(ps.getFromUser(), ps.getToUser(), ps.getAmount()));
+        }
         
         // STEP 3: Filter to only settlements involving this user (and not already settled)
         java.util.List<com.smartsplitpro.model.PersonalSettlement> owe = new java.util.ArrayList<>();
         java.util.List<com.smartsplitpro.model.PersonalSettlement> receive = new java.util.ArrayList<>();
         
         java.time.OffsetDateTime now = java.time.OffsetDateTime.now(java.time.ZoneId.systemDefault());
-        
+
+        // resolve the registration status of every counterparty with one query
+        java.util.List<String> counterparties = new java.util.ArrayList<>();
+        for (com.smartsplitpro.model.Settlement settlement : optimizedSettlements) {
+            if (username.equalsIgnoreCase(settlement.getFrom())) counterparties.add(settlement.getTo());
+            else if (username.equalsIgnoreCase(settlement.getTo())) counterparties.add(settlement.getFrom());
+        }
+        userDirectory.resolve(counterparties);
+
         for (com.smartsplitpro.model.Settlement settlement : optimizedSettlements) {
             String from = settlement.getFrom();
             String to = settlement.getTo();
             java.math.BigDecimal amount = settlement.getAmount();
             
             // Check if this exact settlement was already marked as settled
-            boolean alreadySettled = settledEntries.stream().anyMatch(ps -> 
-                ps.getFromUser().equalsIgnoreCase(from) && 
-                ps.getToUser().equalsIgnoreCase(to) &&
-                ps.getAmount().compareTo(amount) == 0
-            );
-            
+            boolean alreadySettled = from != null && to != null && amount != null
+                    && settledKeys.contains(settledKey(from, to, amount));
+
             if (alreadySettled) {
                 continue; // Skip this settlement, it's already done
             }
@@ -658,6 +657,11 @@ public class TransactionService {
         return result;
     }
     
+    // Case-insensitive (from, to, amount in cents) key used to match settled entries
+    private static String settledKey(String from, String to, java.math.BigDecimal amount) {
+        return from.toLowerCase() + '\n' + to.toLowerCase() + '\n' + Money.toCents(amount);
+    }
+
     /**
      * Get COMPARISON between raw transactions and optimized settlements for user
      * This helps show "Before Optimization" vs "After Optimization"
@@ -670,6 +674,25 @@ public class TransactionService {
      * - "savings": How many fewer transactions after optimization
      */
     public java.util.Map<String, Object> getOptimizedNotificationsWithComparison(String username) {
+        return getOptimizedNotificationsWithComparison(username, username == null ? null : listPersonalNotifications(username));
+    }
+
+    /**
+     * Same as {@link #getOptimizedNotificationsWithComparison(String)} but
+     * reuses notifications the caller already computed with
+     * {@link #listPersonalNotifications(String)}.
+     */
+    public java.util.Map<String, Object> getOptimizedNotificationsWithComparison(String username,
+            java.util.Map<String, java.util.List<com.smartsplitpro.model.PersonalSettlement>> optimized) {
+        return getOptimizedNotificationsWithComparison(username, null, optimized);
+    }
+
+    /**
+     * Same again, with the user's transactions ({@link #listByUser(String)})
+     * also supplied by the caller; null reads them.
+     */
+    public java.util.Map<String, Object> getOptimizedNotificationsWithComparison(String username, List<Transaction> userTransactions,
+            java.util.Map<String, java.util.List<com.smartsplitpro.model.PersonalSettlement>> optimized) {
         java.util.Map<String, Object> result = new java.util.HashMap<>();
         
         if (username == null) {
@@ -682,9 +705,10 @@ public class TransactionService {
         }
         
         // Get user's transactions (RAW - what they know)
-        List<Transaction> userTransactions = listByUser(username);
-        java.util.List<String> rawOwePeople = new java.util.ArrayList<>();
-        java.util.List<String> rawReceivePeople = new java.util.ArrayList<>();
+        if (userTransactions == null) userTransactions = listByUser(username);
+        // insertion-ordered sets keep first-seen order without List.contains scans
+        java.util.Set<String> rawOwePeople = new java.util.LinkedHashSet<>();
+        java.util.Set<String> rawReceivePeople = new java.util.LinkedHashSet<>();
         
         for (Transaction tx : userTransactions) {
             String payer = tx.getPayerUsername();
@@ -692,25 +716,21 @@ public class TransactionService {
             
             if (username.equalsIgnoreCase(payer)) {
                 // User paid, so payee owes them (or they overpaid)
-                if (!rawReceivePeople.contains(payee)) rawReceivePeople.add(payee);
+                rawReceivePeople.add(payee);
             }
             if (username.equalsIgnoreCase(payee)) {
                 // Someone paid for user, user might owe them
-                if (!rawOwePeople.contains(payer)) rawOwePeople.add(payer);
+                rawOwePeople.add(payer);
             }
         }
         
-        // Get optimized settlements (OPTIMIZED - what they should do)
-        java.util.Map<String, java.util.List<com.smartsplitpro.model.PersonalSettlement>> optimized 
-            = listPersonalNotifications(username);
-        
         // Calculate savings
         int rawCount = rawOwePeople.size() + rawReceivePeople.size();
         int optimizedCount = optimized.get("owe").size() + optimized.get("receive").size();
         int savings = Math.max(0, rawCount - optimizedCount);
         
-        result.put("raw_owe_people", rawOwePeople);
-        result.put("raw_receive_people", rawReceivePeople);
+        result.put("raw_owe_people", new java.util.ArrayList<>(rawOwePeople));
+        result.put("raw_receive_people", new java.util.ArrayList<>(rawReceivePeople));
         result.put("optimized_owe", optimized.get("owe"));
         result.put("optimized_receive", optimized.get("receive"));
         result.put("savings", savings);
@@ -746,6 +766,7 @@ public class TransactionService {
             ps.setSettledAt(java.time.OffsetDateTime.now(java.time.ZoneId.systemDefault()));
             ps.setSettledBy(username);
             personalSettlementRepository.save(ps);
+            personalSettlementsChanged(ps.getFromUser(), ps.getToUser());
             return true;
         } catch (Exception e) {
             return false;
@@ -754,16 +775,20 @@ public class TransactionService {
 
     private void attachContactDetails(java.util.List<com.smartsplitpro.model.PersonalSettlement> entries) {
         if (entries == null || entries.isEmpty()) return;
+        // one directory lookup (at most one IN query) for every user named in the list
+        java.util.List<String> names = new java.util.ArrayList<>(entries.size() * 2);
         for (com.smartsplitpro.model.PersonalSettlement ps : entries) {
             if (ps == null) continue;
-            String from = ps.getFromUser();
-            if (from != null && !from.isBlank()) {
-                userRepository.findByUsernameIgnoreCase(from.trim()).ifPresent(u -> ps.setFromUserPhone(normalizePhoneNumber(u.getPhoneNumber())));
-            }
-            String to = ps.getToUser();
-            if (to != null && !to.isBlank()) {
-                userRepository.findByUsernameIgnoreCase(to.trim()).ifPresent(u -> ps.setToUserPhone(normalizePhoneNumber(u.getPhoneNumber())));
-            }
+            names.add(ps.getFromUser());
+            names.add(ps.getToUser());
+        }
+        java.util.Map<String, UserDirectory.Entry> directory = userDirectory.resolve(names);
+        for (com.smartsplitpro.model.PersonalSettlement ps : entries) {
+            if (ps == null) continue;
+            UserDirectory.Entry from = directory.get(UserDirectory.normalize(ps.getFromUser()));
+            if (from != null && from.isRegistered()) ps.setFromUserPhone(normalizePhoneNumber(from.getPhoneNumber()));
+            UserDirectory.Entry to = directory.get(UserDirectory.normalize(ps.getToUser()));
+            if (to != null && to.isRegistered()) ps.setToUserPhone(normalizePhoneNumber(to.getPhoneNumber()));
         }
     }
 
@@ -780,7 +805,7 @@ public class TransactionService {
         String trimmed = username.trim();
         if (trimmed.isEmpty()) return false;
         try {
-            return userRepository.findByUsernameIgnoreCase(trimmed).isPresent();
+            return userDirectory.isRegistered(trimmed);
         } catch (Exception ignored) {
             return false;
         }
@@ -808,9 +833,10 @@ public class TransactionService {
             ps.setSettledAt(now);
             ps.setSettledBy(settledBy == null ? "unknown" : settledBy);
             personalSettlementRepository.save(ps);
+            personalSettlementsChanged(fromUser, toUser);
             return true;
         } catch (Exception e) {
-            System.out.println("Failed to createAndMarkPersonalSettled: " + e.getMessage());
+            log.warn("Failed to createAndMarkPersonalSettled: {}", e.getMessage());
             return false;
         }
     }
@@ -834,145 +860,6 @@ public class TransactionService {
         return new java.util.ArrayList<>(map.values());
     }
 
-    // ========================================================================
-    // MANUAL SORTING ALGORITHMS - QUICK SORT IMPLEMENTATION
-    // ========================================================================
-    
-    /**
-     * Manual Quick Sort implementation for sorting balances in DESCENDING order
-     * (Largest balance first - for creditors)
-     * 
-     * Algorithm: Quick Sort
-     * Time Complexity: O(n log n) average, O(n²) worst case
-     * Space Complexity: O(log n) for recursion stack
-     */
-    private void quickSortBalancesDescending(List<Balance> list, int low, int high) {
-        if (low < high) {
-            // Partition and get pivot index
-            int pivotIndex = partitionDescending(list, low, high);
-            
-            // Recursively sort elements before and after partition
-            quickSortBalancesDescending(list, low, pivotIndex - 1);
-            quickSortBalancesDescending(list, pivotIndex + 1, high);
-        }
-    }
-    
-    private int partitionDescending(List<Balance> list, int low, int high) {
-        // Choose last element as pivot
-        BigDecimal pivot = list.get(high).getBalance();
-        int i = low - 1; // Index of smaller element
-        
-        for (int j = low; j < high; j++) {
-            // For descending order: if current element is GREATER than pivot
-            if (list.get(j).getBalance().compareTo(pivot) > 0) {
-                i++;
-                // Swap elements
-                Balance temp = list.get(i);
-                list.set(i, list.get(j));
-                list.set(j, temp);
-            }
-        }
-        
-        // Swap pivot to correct position
-        Balance temp = list.get(i + 1);
-        list.set(i + 1, list.get(high));
-        list.set(high, temp);
-        
-        return i + 1;
-    }
-    
-    /**
-     * Manual Quick Sort implementation for sorting balances in ASCENDING order
-     * (Most negative first - for debtors)
-     * 
-     * Algorithm: Quick Sort
-     * Time Complexity: O(n log n) average, O(n²) worst case
-     * Space Complexity: O(log n) for recursion stack
-     */
-    private void quickSortBalancesAscending(List<Balance> list, int low, int high) {
-        if (low < high) {
-            // Partition and get pivot index
-            int pivotIndex = partitionAscending(list, low, high);
-            
-            // Recursively sort elements before and after partition
-            quickSortBalancesAscending(list, low, pivotIndex - 1);
-            quickSortBalancesAscending(list, pivotIndex + 1, high);
-        }
-    }
-    
-    private int partitionAscending(List<Balance> list, int low, int high) {
-        // Choose last element as pivot
-        BigDecimal pivot = list.get(high).getBalance();
-        int i = low - 1; // Index of smaller element
-        
-        for (int j = low; j < high; j++) {
-            // For ascending order: if current element is LESS than pivot
-            if (list.get(j).getBalance().compareTo(pivot) < 0) {
-                i++;
-                // Swap elements
-                Balance temp = list.get(i);
-                list.set(i, list.get(j));
-                list.set(j, temp);
-            }
-        }
-        
-        // Swap pivot to correct position
-        Balance temp = list.get(i + 1);
-        list.set(i + 1, list.get(high));
-        list.set(high, temp);
-        
-        return i + 1;
-    }
-    
-    /**
-     * Manual Bubble Sort implementation for sorting transactions by timestamp
-     * (Most recent first - descending order)
-     * 
-     * Algorithm: Bubble Sort
-     * Time Complexity: O(n²) worst/average case, O(n) best case (already sorted)
-     * Space Complexity: O(1) - in-place sorting
-     * 
-     * Educational Note: Bubble Sort is slower than Quick Sort but easier to understand.
-     * Good for small datasets or when simplicity is important.
-     */
-    private void bubbleSortTransactionsByTimestamp(List<Transaction> list) {
-        int n = list.size();
-        boolean swapped;
-        
-        for (int i = 0; i < n - 1; i++) {
-            swapped = false;
-            
-            for (int j = 0; j < n - 1 - i; j++) {
-                // Compare adjacent elements
-                java.time.LocalDateTime t1 = list.get(j).getTimestamp();
-                java.time.LocalDateTime t2 = list.get(j + 1).getTimestamp();
-                
-                // Handle null timestamps (nulls go to end)
-                if (t1 == null && t2 == null) continue;
-                if (t1 == null) {
-                    // Swap (null should be at end)
-                    Transaction temp = list.get(j);
-                    list.set(j, list.get(j + 1));
-                    list.set(j + 1, temp);
-                    swapped = true;
-                    continue;
-                }
-                if (t2 == null) continue; // t1 is already before null
-                
-                // For descending order: swap if t1 < t2 (t2 is more recent)
-                if (t1.compareTo(t2) < 0) {
-                    Transaction temp = list.get(j);
-                    list.set(j, list.get(j + 1));
-                    list.set(j + 1, temp);
-                    swapped = true;
-                }
-            }
-            
-            // If no swaps occurred, list is sorted
-            if (!swapped) break;
-        }
-    }
-    
     // ========================================================================
     // MANUAL SEARCHING ALGORITHMS IMPLEMENTATION
     // ========================================================================
@@ -994,12 +881,12 @@ public class TransactionService {
         for (int i = 0; i < transactions.size(); i++) {
             Transaction tx = transactions.get(i);
             if (tx != null && tx.getId() != null && tx.getId().equals(targetId)) {
-                System.out.println("[LINEAR SEARCH] Found at index: " + i);
+                log.debug("[LINEAR SEARCH] Found at index: {}", i);
                 return tx; // Found!
             }
         }
         
-        System.out.println("[LINEAR SEARCH] Not found");
+        log.debug("[LINEAR SEARCH] Not found");
         return null; // Not found
     }
     
@@ -1035,7 +922,7 @@ public class TransactionService {
             
             // Check if target is at mid
             if (midId.equals(targetId)) {
-                System.out.println("[BINARY SEARCH] Found at index: " + mid);
+                log.debug("[BINARY SEARCH] Found at index: {}", mid);
                 return midTx; // Found!
             }
             
@@ -1049,7 +936,7 @@ public class TransactionService {
             }
         }
         
-        System.out.println("[BINARY SEARCH] Not found");
+        log.debug("[BINARY SEARCH] Not found");
         return null; // Not found
     }
     
@@ -1072,13 +959,13 @@ public class TransactionService {
             if (balance != null && balance.getUsername() != null) {
                 String balanceUser = balance.getUsername().trim().toLowerCase();
                 if (balanceUser.equals(normalizedUsername)) {
-                    System.out.println("[BALANCE SEARCH] Found balance for " + username);
+                    log.debug("[BALANCE SEARCH] Found balance for {}", username);
                     return balance.getBalance();
                 }
             }
         }
         
-        System.out.println("[BALANCE SEARCH] No balance found for " + username);
+        log.debug("[BALANCE SEARCH] No balance found for {}", username);
         return BigDecimal.ZERO;
     }
     
@@ -1113,186 +1000,8 @@ public class TransactionService {
             }
         }
         
-        System.out.println("[USER TRANSACTION SEARCH] Found " + userTransactions.size() + " transactions for " + username);
+        log.debug("[USER TRANSACTION SEARCH] Found {} transactions for {}", userTransactions.size(), username);
         return userTransactions;
     }
 
-    // ==================== MANUAL HASH MAP IMPLEMENTATION ====================
-    
-    /**
-     * Custom HashMap Implementation using Separate Chaining for collision resolution
-     * 
-     * Algorithm: Hash Table with Linked List for collisions
-     * - Hash Function: Custom implementation based on string characters
-     * - Collision Resolution: Separate Chaining (each bucket has a linked list)
-     * - Time Complexity: O(1) average for put/get, O(n) worst case
-     * - Space Complexity: O(n) where n is number of entries
-     */
-    private static class SimpleHashMap<K, V> {
-        private static final int DEFAULT_CAPACITY = 16;
-        private static final float LOAD_FACTOR = 0.75f;
-        
-        private Entry<K, V>[] buckets;
-        private int size;
-        
-        @SuppressWarnings("unchecked")
-        public SimpleHashMap() {
-            buckets = new Entry[DEFAULT_CAPACITY];
-            size = 0;
-        }
-        
-        /**
-         * Custom hash function - converts key to integer index
-         * Algorithm: Polynomial rolling hash
-         */
-        private int hash(K key) {
-            if (key == null) return 0;
-            
-            String keyStr = key.toString();
-            int hash = 0;
-            
-            // Polynomial hash: hash = (hash * 31 + char) for each character
-            for (int i = 0; i < keyStr.length(); i++) {
-                hash = hash * 31 + keyStr.charAt(i);
-            }
-            
-            // Make positive and fit within bucket size
-            hash = Math.abs(hash);
-            return hash % buckets.length;
-        }
-        
-        /**
-         * Put key-value pair into map
-         * Time Complexity: O(1) average, O(n) worst case with many collisions
-         */
-        public void put(K key, V value) {
-            if (key == null) return;
-            
-            // Check if we need to resize
-            if ((float) size / buckets.length >= LOAD_FACTOR) {
-                resize();
-            }
-            
-            int index = hash(key);
-            Entry<K, V> head = buckets[index];
-            
-            // Search for existing key in the chain
-            Entry<K, V> current = head;
-            while (current != null) {
-                if (current.key.equals(key)) {
-                    // Key exists, update value
-                    current.value = value;
-                    return;
-                }
-                current = current.next;
-            }
-            
-            // Key doesn't exist, add new entry at the head of chain
-            Entry<K, V> newEntry = new Entry<>(key, value);
-            newEntry.next = head;
-            buckets[index] = newEntry;
-            size++;
-        }
-        
-        /**
-         * Get value for given key
-         * Time Complexity: O(1) average, O(n) worst case
-         */
-        public V get(K key) {
-            if (key == null) return null;
-            
-            int index = hash(key);
-            Entry<K, V> current = buckets[index];
-            
-            // Linear search through chain
-            while (current != null) {
-                if (current.key.equals(key)) {
-                    return current.value;
-                }
-                current = current.next;
-            }
-            
-            return null; // Key not found
-        }
-        
-        /**
-         * Get all keys in the map
-         */
-        public List<K> keys() {
-            List<K> keyList = new ArrayList<>();
-            
-            for (Entry<K, V> bucket : buckets) {
-                Entry<K, V> current = bucket;
-                while (current != null) {
-                    keyList.add(current.key);
-                    current = current.next;
-                }
-            }
-            
-            return keyList;
-        }
-        
-        /**
-         * Get number of entries
-         */
-        public int size() {
-            return size;
-        }
-        
-        /**
-         * Resize the hash table when load factor exceeds threshold
-         * Algorithm: Create new larger array, rehash all entries
-         * Time Complexity: O(n)
-         */
-        @SuppressWarnings("unchecked")
-        private void resize() {
-            Entry<K, V>[] oldBuckets = buckets;
-            buckets = new Entry[oldBuckets.length * 2];
-            size = 0;
-            
-            // Rehash all entries
-            for (Entry<K, V> bucket : oldBuckets) {
-                Entry<K, V> current = bucket;
-                while (current != null) {
-                    put(current.key, current.value);
-                    current = current.next;
-                }
-            }
-        }
-        
-        @Override
-        public String toString() {
-            StringBuilder sb = new StringBuilder("{");
-            boolean first = true;
-            
-            for (Entry<K, V> bucket : buckets) {
-                Entry<K, V> current = bucket;
-                while (current != null) {
-                    if (!first) sb.append(", ");
-                    sb.append(current.key).append("=").append(current.value);
-                    first = false;
-                    current = current.next;
-                }
-            }
-            
-            sb.append("}");
-            return sb.toString();
-        }
-        
-        /**
-         * Entry node for linked list in each bucket
-         */
-        private static class Entry<K, V> {
-            K key;
-            V value;
-            Entry<K, V> next;
-            
-            Entry(K key, V value) {
-                this.key = key;
-                this.value = value;
-                this.next = null;
-            }
-        }
-    }
-
 }
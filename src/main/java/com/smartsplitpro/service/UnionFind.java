@@ -0,0 +1,52 @@
+package com.smartsplitpro.service;
+
+/**
+ * Disjoint-set forest over the ids {@code 0 .. n - 1}, with union by size
+ * and path halving.
+ */
+public final class UnionFind {
+    private final int[] parent;
+    private final int[] size;
+    private int sets;
+
+    public UnionFind(int n) {
+        parent = new int[n];
+        size = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+        sets = n;
+    }
+
+    public int find(int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    /**
+     * Merge the sets containing {@code a} and {@code b}; returns false if they
+     * were already the same set.
+     */
+    public boolean union(int a, int b) {
+        int ra = find(a);
+        int rb = find(b);
+        if (ra == rb) return false;
+        if (size[ra] < size[rb]) {
+            int t = ra;
+            ra = rb;
+            rb = t;
+        }
+        parent[rb] = ra;
+        size[ra] += size[rb];
+        sets--;
+        return true;
+    }
+
+    public int sets() {
+        return sets;
+    }
+}
@@ -0,0 +1,149 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.User;
+import com.smartsplitpro.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory directory of username -> (registered, phone number).
+ *
+ * Lookups for a whole list of usernames are answered from an LRU map of at
+ * most {@code directory.max-entries} users; all misses are then resolved with
+ * one {@code IN} query (chunked for very long lists). Unknown usernames are
+ * cached as unregistered, so registration must call {@link #invalidate(String)}.
+ */
+@Component
+public class UserDirectory {
+    private static final int IN_CHUNK = 500;
+
+    private final UserRepository userRepository;
+    private final Map<String, Entry> cache;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+
+    public UserDirectory(UserRepository userRepository, @Value("${directory.max-entries:10000}") int maxEntries) {
+        this.userRepository = userRepository;
+        int limit = Math.max(16, maxEntries);
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > limit;
+            }
+        };
+    }
+
+    /**
+     * Directory entries for {@code usernames} keyed by normalized (trimmed,
+     * lower-case) username. Blank names are skipped.
+     */
+    public Map<String, Entry> resolve(Collection<String> usernames) {
+        Map<String, Entry> out = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        synchronized (cache) {
+            for (String name : usernames) {
+                String key = normalize(name);
+                if (key == null || out.containsKey(key)) continue;
+                Entry e = cache.get(key);
+                if (e != null) {
+                    hits.incrementAndGet();
+                    out.put(key, e);
+                } else {
+                    missing.add(key);
+                }
+            }
+        }
+        if (missing.isEmpty()) return out;
+
+        misses.addAndGet(missing.size());
+        Map<String, Entry> loaded = new HashMap<>();
+        List<String> keys = new ArrayList<>(missing);
+        for (int from = 0; from < keys.size(); from += IN_CHUNK) {
+            List<String> chunk = keys.subList(from, Math.min(keys.size(), from + IN_CHUNK));
+            queries.incrementAndGet();
+            for (User u : userRepository.findByUsernameLowerIn(chunk)) {
+                String key = normalize(u.getUsername());
+                if (key != null) loaded.put(key, new Entry(true, u.getPhoneNumber()));
+            }
+        }
+        synchronized (cache) {
+            for (String key : missing) {
+                Entry e = loaded.getOrDefault(key, Entry.UNREGISTERED);
+                cache.put(key, e);
+                out.put(key, e);
+            }
+        }
+        return out;
+    }
+
+    public Entry lookup(String username) {
+        String key = normalize(username);
+        if (key == null) return Entry.UNREGISTERED;
+        return resolve(List.of(key)).getOrDefault(key, Entry.UNREGISTERED);
+    }
+
+    public boolean isRegistered(String username) {
+        return lookup(username).isRegistered();
+    }
+
+    /**
+     * Forget {@code username} (e.g. after it registers or changes its phone number).
+     */
+    public void invalidate(String username) {
+        String key = normalize(username);
+        if (key == null) return;
+        synchronized (cache) {
+            cache.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        synchronized (cache) {
+            out.put("entries", cache.size());
+        }
+        out.put("hits", hits.get());
+        out.put("misses", misses.get());
+        out.put("queries", queries.get());
+        return out;
+    }
+
+    static String normalize(String username) {
+        if (username == null) return null;
+        String key = username.trim().toLowerCase();
+        return key.isEmpty() ? null : key;
+    }
+
+    public static final class Entry {
+        static final Entry UNREGISTERED = new Entry(false, null);
+
+        private final boolean registered;
+        private final String phoneNumber;
+
+        Entry(boolean registered, String phoneNumber) {
+            this.registered = registered;
+            this.phoneNumber = phoneNumber;
+        }
+
+        public boolean isRegistered() { return registered; }
+        public String getPhoneNumber() { return phoneNumber; }
+    }
+}
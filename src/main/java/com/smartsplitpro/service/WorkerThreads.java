@@ -0,0 +1,37 @@
+package com.smartsplitpro.service;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread factories for the application's own background executors. When
+ * {@code spring.threads.virtual.enabled} is set they create virtual threads,
+ * like Tomcat and Spring's task executors do in that mode; otherwise named
+ * daemon platform threads.
+ */
+public final class WorkerThreads {
+    private WorkerThreads() {}
+
+    /**
+     * Threads all called {@code name} (for single-thread executors).
+     */
+    public static ThreadFactory named(String name, boolean virtual) {
+        if (virtual) return Thread.ofVirtual().name(name).factory();
+        return r -> daemon(r, name);
+    }
+
+    /**
+     * Threads called {@code prefix-1}, {@code prefix-2}, ...
+     */
+    public static ThreadFactory numbered(String prefix, boolean virtual) {
+        if (virtual) return Thread.ofVirtual().name(prefix + "-", 1).factory();
+        AtomicInteger threadNo = new AtomicInteger();
+        return r -> daemon(r, prefix + "-" + threadNo.incrementAndGet());
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+}
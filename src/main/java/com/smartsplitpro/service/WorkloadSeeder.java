@@ -0,0 +1,187 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.PersonalSettlement;
+import com.smartsplitpro.model.Transaction;
+import com.smartsplitpro.model.User;
+import com.smartsplitpro.repository.PersonalSettlementRepository;
+import com.smartsplitpro.repository.TransactionRepository;
+import com.smartsplitpro.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Bulk-loads a reproducible synthetic workload when the {@code seed} profile
+ * is active ({@code --spring.profiles.active=seed}):
+ * - {@code seed.users} users named {@code <seed.user-prefix><n>}, all with
+ *   {@code seed.password}, so the load driver can log in as any of them;
+ * - friend groups of {@code seed.group-size} consecutive users; every
+ *   transaction stays inside one group, like a real split between friends;
+ * - {@code seed.transactions} transactions spread over {@code seed.days},
+ *   each with the personal settlement entry addTransaction would create.
+ *
+ * Which group is active and who pays inside it follow Zipf distributions
+ * with exponent {@code seed.skew} (0 = uniform), and the same
+ * {@code seed.random-seed} always produces the same data. Rows are inserted
+ * in chunks of {@code seed.batch-size} without audit history, and the
+ * balance ledger is rebuilt once at the end. Nothing is written if the first
+ * seed user already exists.
+ */
+@Component
+@Profile("seed")
+public class WorkloadSeeder implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(WorkloadSeeder.class);
+
+    private final UserRepository userRepository;
+    private final TransactionRepository transactionRepository;
+    private final PersonalSettlementRepository personalSettlementRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final BalanceLedger balanceLedger;
+    private final UserDirectory userDirectory;
+    private final TransactionTemplate tx;
+
+    private final int users;
+    private final int groupSize;
+    private final int transactions;
+    private final double skew;
+    private final long randomSeed;
+    private final String prefix;
+    private final String password;
+    private final int batchSize;
+    private final int days;
+
+    public WorkloadSeeder(UserRepository userRepository,
+                          TransactionRepository transactionRepository,
+                          PersonalSettlementRepository personalSettlementRepository,
+                          PasswordEncoder passwordEncoder,
+                          BalanceLedger balanceLedger,
+                          UserDirectory userDirectory,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${seed.users:1000}") int users,
+                          @Value("${seed.group-size:8}") int groupSize,
+                          @Value("${seed.transactions:100000}") int transactions,
+                          @Value("${seed.skew:1.0}") double skew,
+                          @Value("${seed.random-seed:42}") long randomSeed,
+                          @Value("${seed.user-prefix:load}") String prefix,
+                          @Value("${seed.password:password}") String password,
+                          @Value("${seed.batch-size:1000}") int batchSize,
+                          @Value("${seed.days:365}") int days) {
+        this.userRepository = userRepository;
+        this.transactionRepository = transactionRepository;
+        this.personalSettlementRepository = personalSettlementRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.balanceLedger = balanceLedger;
+        this.userDirectory = userDirectory;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.users = Math.max(2, users);
+        this.groupSize = Math.max(2, Math.min(groupSize, this.users));
+        this.transactions = Math.max(0, transactions);
+        this.skew = skew;
+        this.randomSeed = randomSeed;
+        this.prefix = prefix;
+        this.password = password;
+        this.batchSize = Math.max(1, batchSize);
+        this.days = Math.max(1, days);
+    }
+
+    public static String username(String prefix, int index) {
+        return prefix + index;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (userRepository.findByUsername(username(prefix, 0)).isPresent()) {
+            log.info("Seed user {} already exists; skipping workload seeding", username(prefix, 0));
+            return;
+        }
+        long started = System.nanoTime();
+        Random random = new Random(randomSeed);
+        seedUsers();
+        seedTransactions(random);
+        userDirectory.invalidateAll();
+        balanceLedger.rebuild();
+        log.info("Seeded {} users in groups of {} and {} transactions (skew {}, seed {}) in {} ms",
+                users, groupSize, transactions, skew, randomSeed, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void seedUsers() {
+        // one hash for everyone: BCrypt per user would dominate the run
+        String hash = passwordEncoder.encode(password);
+        List<User> chunk = new ArrayList<>(batchSize);
+        for (int i = 0; i < users; i++) {
+            User u = new User(username(prefix, i), "Load user " + i, hash, "ROLE_USER");
+            u.setPhoneNumber(String.format("+1555%07d", i));
+            chunk.add(u);
+            if (chunk.size() == batchSize) {
+                saveUsers(chunk);
+                chunk = new ArrayList<>(batchSize);
+            }
+        }
+        saveUsers(chunk);
+    }
+
+    private void saveUsers(List<User> chunk) {
+        if (chunk.isEmpty()) return;
+        tx.executeWithoutResult(status -> userRepository.saveAll(chunk));
+    }
+
+    private void seedTransactions(Random random) {
+        int groups = (users + groupSize - 1) / groupSize;
+        ZipfDistribution groupActivity = new ZipfDistribution(groups, skew);
+        ZipfDistribution memberActivity = new ZipfDistribution(groupSize, skew);
+        LocalDateTime end = LocalDateTime.now(ZoneId.systemDefault());
+        long spanSeconds = days * 24L * 3600L;
+
+        List<Transaction> chunk = new ArrayList<>(batchSize);
+        for (int i = 0; i < transactions; i++) {
+            int group = groupActivity.sample(random);
+            int first = group * groupSize;
+            int size = Math.min(groupSize, users - first);
+            int payer = first + memberActivity.sample(random) % size;
+            int payee = first + (payer - first + 1 + random.nextInt(size - 1)) % size;
+
+            Transaction t = new Transaction();
+            t.setPayerUsername(username(prefix, payer));
+            t.setPayeeUsername(username(prefix, payee));
+            t.setCreatedBy(t.getPayerUsername());
+            // mostly small amounts with a long tail
+            long cents = 100 + (long) (Math.abs(random.nextGaussian()) * 2500);
+            t.setAmount(BigDecimal.valueOf(cents, 2));
+            t.setDescription("Seed #" + i);
+            t.setTimestamp(end.minusSeconds((long) (random.nextDouble() * spanSeconds)));
+            chunk.add(t);
+            if (chunk.size() == batchSize) {
+                saveTransactions(chunk);
+                chunk = new ArrayList<>(batchSize);
+            }
+        }
+        saveTransactions(chunk);
+    }
+
+    private void saveTransactions(List<Transaction> chunk) {
+        if (chunk.isEmpty()) return;
+        tx.executeWithoutResult(status -> {
+            List<Transaction> saved = transactionRepository.saveAll(chunk);
+            List<PersonalSettlement> entries = new ArrayList<>(saved.size());
+            for (Transaction t : saved) {
+                entries.add(new PersonalSettlement(t.getPayerUsername(), t.getPayeeUsername(), t.getAmount(),
+                        t.getTimestamp().atZone(ZoneId.systemDefault()).toOffsetDateTime(), false, t.getId()));
+            }
+            personalSettlementRepository.saveAll(entries);
+        });
+    }
+}
@@ -0,0 +1,39 @@
+package com.smartsplitpro.service;
+
+import java.util.Random;
+
+/**
+ * Samples ranks {@code 0 .. n-1} with probability proportional to
+ * {@code 1 / (rank + 1)^exponent}. Exponent 0 is uniform; around 1 a few
+ * ranks dominate, as in real activity data. Sampling is a binary search
+ * over the precomputed cumulative weights.
+ */
+public final class ZipfDistribution {
+    private final double[] cumulative;
+
+    public ZipfDistribution(int n, double exponent) {
+        if (n <= 0) throw new IllegalArgumentException("n must be positive");
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, Math.max(0, exponent));
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++) cumulative[k] /= sum;
+    }
+
+    public int sample(Random random) {
+        double u = random.nextDouble();
+        int lo = 0, hi = cumulative.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cumulative[mid] < u) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    public int size() {
+        return cumulative.length;
+    }
+}
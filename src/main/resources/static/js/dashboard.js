@@ -1,6 +1,8 @@
 // dashboard.js — fetch data and render charts
 
 async function fetchJson(url, opts) {
+  // any write makes the cached dashboard data stale
+  if (opts && opts.method && opts.method.toUpperCase() !== 'GET') invalidateDashboardData();
   const res = await fetch(url, opts);
   if (!res.ok) {
     // If session/CSRF expired (common after backend devtools restart), refresh the page to get a new token
@@ -15,6 +17,26 @@ async function fetchJson(url, opts) {
   return res.json();
 }
 
+// -- Aggregate dashboard data --
+// One /api/dashboard response (computed server-side from a single ledger
+// snapshot) feeds every panel of a refresh. It is reused until a write or a
+// pushed update invalidates it, and never for longer than DASHBOARD_MAX_AGE_MS.
+const DASHBOARD_MAX_AGE_MS = 2000;
+let dashboardPromise = null;
+let dashboardFetchedAt = 0;
+
+function loadDashboardData(force = false) {
+  if (force || !dashboardPromise || Date.now() - dashboardFetchedAt > DASHBOARD_MAX_AGE_MS) {
+    dashboardFetchedAt = Date.now();
+    dashboardPromise = fetchJson('/api/dashboard').catch(err => { dashboardPromise = null; throw err; });
+  }
+  return dashboardPromise;
+}
+
+function invalidateDashboardData() {
+  dashboardPromise = null;
+}
+
 // Read CSRF token/header from meta tags (Thymeleaf provides them)
 function getCsrf() {
   const token = document.querySelector('meta[name="_csrf"]')?.getAttribute('content');
@@ -141,8 +163,8 @@ async function loadTransactions() {
   const container = document.getElementById('tx-list');
   try {
     const isAdmin = document.querySelector('meta[name="is_admin"]')?.getAttribute('content') === 'true';
-    const txEndpoint = isAdmin ? '/api/transactions' : '/api/transactions/me';
-    let txs = await fetchJson(txEndpoint);
+    // admins get every transaction, other users their own
+    let txs = (await loadDashboardData()).transactions;
     // fallback: if user endpoint returns empty but global has data, fetch global for visibility
     if (!isAdmin && (!Array.isArray(txs) || txs.length === 0)) {
       try {
@@ -218,6 +240,7 @@ async function loadTransactions() {
               body: JSON.stringify({ username: uname, amount: amt })
             });
             if (!resp.ok) throw new Error(`${resp.status} ${resp.statusText}`);
+            invalidateDashboardData();
             const json = await resp.json();
             if (json.status === 'ok') {
               showToast('Participant added and notification triggered');
@@ -237,6 +260,7 @@ async function loadTransactions() {
             const csrf = getCsrf();
             const resp = await fetch(`/api/transactions/${t.id}`, { method: 'DELETE', headers: { [csrf.header]: csrf.token } });
             if (!resp.ok) throw new Error(`${resp.status} ${resp.statusText}`);
+            invalidateDashboardData();
             showToast('Transaction deleted');
             setNetworkMode('raw');
             await loadTransactions();
@@ -282,9 +306,10 @@ async function fetchWhoami() {
 
 // -- Personal settlement notifications --
 async function loadPersonalNotifications(options = {}) {
-  const { skipRefresh = false } = options;
+  const { skipRefresh = false, payload: pushed = null } = options;
   try {
-    const payload = await fetchJson('/api/personal-notifications');
+    // pushed digests (live updates) arrive in the same shape as the API response
+    const payload = pushed || (await loadDashboardData()).notifications;
     const data = payload || { owe: [], receive: [], limitedView: false };
     const owe = Array.isArray(data.owe) ? data.owe : [];
     const receive = Array.isArray(data.receive) ? data.receive : [];
@@ -423,6 +448,7 @@ function renderNotificationBell(data) {
             settleBtn.textContent = 'Settling...';
             const resp = await fetch(`/api/personal/${it.id}/settle`, { method: 'POST', headers: { [csrf.header]: csrf.token } });
             if (!resp.ok) throw new Error(`${resp.status} ${resp.statusText}`);
+            invalidateDashboardData();
             const json = await resp.json();
             if (json.status === 'ok') {
               const badge = document.getElementById('ps-badge');
@@ -477,8 +503,8 @@ function renderNotificationBell(data) {
 async function loadBalancesAndRender() {
   try {
     const isAdmin = document.querySelector('meta[name="is_admin"]')?.getAttribute('content') === 'true';
-    const balEndpoint = isAdmin ? '/api/balances' : '/api/balances/me';
-    const balances = await fetchJson(balEndpoint);
+    const dashboard = await loadDashboardData();
+    const balances = isAdmin ? dashboard.balances : dashboard.myBalances;
     const pieCanvas = document.getElementById('balancesPie');
     const txChartEl = document.getElementById('txChart');
     const chartsWrapper = document.querySelector('.charts');
@@ -539,8 +565,7 @@ async function loadBalancesAndRender() {
 
     // Transactions over time chart removed; skip rendering if element missing
     if (txChartEl) {
-      const txEndpointForChart = isAdmin ? '/api/transactions' : '/api/transactions/me';
-      const txs = await fetchJson(txEndpointForChart);
+      const txs = dashboard.transactions || [];
       const byDate = {};
       txs.forEach(t => {
         const d = new Date(t.timestamp || Date.now());
@@ -585,9 +610,9 @@ function setNetworkMode(mode) {
   }
 }
 
-async function fetchCurrentTxs(isAdmin) {
-  const txEndpoint = isAdmin ? '/api/transactions' : '/api/transactions/me';
-  const txs = await fetchJson(txEndpoint);
+async function fetchCurrentTxs(isAdmin, fresh = false) {
+  // the dashboard response already holds the admin (global) or per-user list
+  const txs = (await loadDashboardData(fresh)).transactions;
   return Array.isArray(txs) ? txs : [];
 }
 
@@ -599,7 +624,7 @@ async function waitForTxPresence({ isAdmin, txId, maxAttempts = 4, delayMs = 250
   if (!txId) return false;
   for (let i = 0; i < maxAttempts; i++) {
     try {
-      const txs = await fetchCurrentTxs(isAdmin);
+      const txs = await fetchCurrentTxs(isAdmin, true);
       if (txs && txs.some(t => Number(t.id) === Number(txId))) return true;
     } catch (_) {}
     await sleep(delayMs);
@@ -1395,6 +1420,59 @@ function showToast(msg, isError) {
   setTimeout(()=> t.style.display='none', 6000);
 }
 
+// -- Live updates (Server-Sent Events) --
+// The server pushes balance deltas and new notification digests after each
+// committed write; polling only runs while the stream is unavailable.
+let notificationPoll = null;
+let liveDisconnected = false;
+
+function startNotificationPolling() {
+  if (notificationPoll) return;
+  notificationPoll = setInterval(async () => {
+    try { await loadPersonalNotifications({ payload: await fetchJson('/api/personal-notifications') }); }
+    catch (e) { console.debug('[DEBUG] notification poll failed', e); }
+  }, 60000);
+}
+
+function stopNotificationPolling() {
+  if (notificationPoll) { clearInterval(notificationPoll); notificationPoll = null; }
+}
+
+const refreshAfterPush = debounce(async () => {
+  invalidateDashboardData();
+  try {
+    await loadTransactions();
+    await loadBalancesAndRender();
+    await loadAndRenderNetwork();
+    // notifications from the same dashboard response as the balances
+    await loadPersonalNotifications({ skipRefresh: true });
+  } catch (e) { console.debug('[DEBUG] live refresh failed', e); }
+}, 300);
+
+function connectLiveUpdates() {
+  if (typeof EventSource === 'undefined') { startNotificationPolling(); return; }
+  const source = new EventSource('/api/events');
+  source.addEventListener('ready', () => {
+    stopNotificationPolling();
+    // events sent while we were reconnecting are lost; catch up once
+    if (liveDisconnected) {
+      liveDisconnected = false;
+      refreshAfterPush();
+    }
+  });
+  source.addEventListener('balance', () => refreshAfterPush());
+  source.addEventListener('notifications', (ev) => {
+    try { loadPersonalNotifications({ skipRefresh: true, payload: JSON.parse(ev.data) }); }
+    catch (e) { console.debug('[DEBUG] bad notifications event', e); }
+  });
+  source.addEventListener('resync', () => refreshAfterPush());
+  // EventSource reconnects by itself; poll in the meantime
+  source.onerror = () => {
+    liveDisconnected = true;
+    startNotificationPolling();
+  };
+}
+
 // wire buttons
 window.addEventListener('load', async () => {
   const isAdmin = document.querySelector('meta[name="is_admin"]')?.getAttribute('content') === 'true';
@@ -1476,8 +1554,8 @@ window.addEventListener('load', async () => {
   });
   // initial network render
   await loadAndRenderNetwork();
-  // poll personal notifications every 60 seconds
-  setInterval(loadPersonalNotifications, 60000);
+  // personal notifications are pushed; falls back to polling every 60 seconds
+  connectLiveUpdates();
 });
 
 // history handled on separate /history page
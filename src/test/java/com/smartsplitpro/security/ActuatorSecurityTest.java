@@ -0,0 +1,74 @@
+package com.smartsplitpro.security;
+
+import com.smartsplitpro.model.User;
+import com.smartsplitpro.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Actuator is only served on the loopback management port, and the
+ * Prometheus scrape needs credentials there.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "management.server.port=0")
+@ActiveProfiles("test")
+// tests disable metrics exporters unless asked
+@AutoConfigureObservability
+class ActuatorSecurityTest {
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int serverPort;
+    @LocalManagementPort
+    private int managementPort;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void prometheusNeedsCredentialsOnTheManagementPort() throws Exception {
+        userRepository.findByUsernameIgnoreCase("scraper")
+                .orElseGet(() -> userRepository.save(new User("scraper", "Scraper", passwordEncoder.encode("scrape-pw"), "ROLE_USER")));
+
+        assertEquals(200, get(managementPort, "/actuator/health", null).statusCode());
+        assertEquals(401, get(managementPort, "/actuator/prometheus", null).statusCode());
+        assertEquals(401, get(managementPort, "/actuator/prometheus", "scraper:wrong").statusCode());
+
+        HttpResponse<String> scrape = get(managementPort, "/actuator/prometheus", "scraper:scrape-pw");
+        assertEquals(200, scrape.statusCode());
+        assertTrue(scrape.body().contains("smartsplit_ledger"), "ledger gauges missing from the scrape");
+    }
+
+    @Test
+    void applicationPortDoesNotServeActuator() throws Exception {
+        // the application's error page answers unknown paths, so look at the body
+        HttpResponse<String> response = get(serverPort, "/actuator/prometheus", "scraper:scrape-pw");
+        assertFalse(response.body().contains("# HELP"), "actuator answered on the application port");
+    }
+
+    private HttpResponse<String> get(int port, String path, String credentials) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path)).GET();
+        if (credentials != null) {
+            request.header("Authorization", "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
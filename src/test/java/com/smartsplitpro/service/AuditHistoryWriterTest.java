@@ -0,0 +1,80 @@
+package com.smartsplitpro.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartsplitpro.model.HistoryParticipant;
+import com.smartsplitpro.model.Transaction;
+import com.smartsplitpro.model.TransactionHistory;
+import com.smartsplitpro.repository.TransactionHistoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Audit payloads must be valid JSON whatever the description holds, so the
+ * participant index can read every username back out of them.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AuditHistoryWriterTest {
+    private static final String DESCRIPTION = "rent \"march\"\nC:\\share\\ \t tab \\";
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AuditHistoryWriter auditHistoryWriter;
+    @Autowired
+    private TransactionHistoryRepository historyRepository;
+    @Autowired
+    private HistoryParticipants historyParticipants;
+
+    private final ObjectMapper strict = new ObjectMapper();
+
+    @Test
+    void payloadEscapesQuotesBackslashesAndControlCharacters() throws Exception {
+        Transaction tx = new Transaction();
+        tx.setDescription(DESCRIPTION);
+        tx.setPayerUsername("nell");
+        tx.setPayeeUsername("otto");
+        tx.setAmount(new BigDecimal("12.50"));
+        tx.setCreatedBy("nell");
+        Transaction saved = transactionService.addTransaction(tx);
+        auditHistoryWriter.flush();
+
+        TransactionHistory row = historyRepository.findByParticipant("otto", PageRequest.of(0, 10)).stream()
+                .filter(h -> saved.getId().equals(h.getTransactionId()))
+                .findFirst().orElseThrow();
+        JsonNode payload = strict.readTree(row.getPayload());
+        assertEquals(DESCRIPTION, payload.get("description").asText());
+        assertEquals(saved.getId().longValue(), payload.get("id").asLong());
+        // amounts keep their scale, as in the hand-built payloads
+        assertTrue(row.getPayload().contains("\"amount\":12.50,"), row.getPayload());
+        assertEquals(Set.of("PAYER:nell", "PAYEE:otto", "CREATOR:nell"), roles(historyParticipants.fromPayload(row)));
+    }
+
+    @Test
+    void handBuiltPayloadsWithRawControlCharactersAreStillIndexed() {
+        String old = "{\"id\":7,\"payerUsername\":\"pia\",\"payeeUsername\":\"quin\",\"amount\":3.00,"
+                + "\"description\":\"line one\nC:\\temp\\q\",\"timestamp\":null,\"createdBy\":\"pia\","
+                + "\"recordedAt\":\"2024-01-01T00:00Z\"}";
+        TransactionHistory row = new TransactionHistory(7L, "CREATED", old, null, null);
+        assertEquals(Set.of("PAYER:pia", "PAYEE:quin", "CREATOR:pia"), roles(historyParticipants.fromPayload(row)));
+    }
+
+    private static Set<String> roles(List<HistoryParticipant> participants) {
+        return participants.stream()
+                .filter(p -> !HistoryParticipant.PERFORMER.equals(p.getRole()))
+                .map(p -> p.getRole() + ":" + p.getUsername())
+                .collect(Collectors.toSet());
+    }
+}
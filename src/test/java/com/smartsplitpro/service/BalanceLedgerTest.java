@@ -0,0 +1,217 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.Balance;
+import com.smartsplitpro.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Changes that commit while a rebuild scans the table, or whose commit is
+ * applied after the rebuild finished, must end up counted exactly once;
+ * {@code verify()} compares the result with a fresh scan.
+ */
+class BalanceLedgerTest {
+    private final List<Transaction> table = new ArrayList<>();
+    // runs after the scan hands over the row at the given position
+    private Consumer<Integer> duringScan = position -> { };
+    private final BalanceLedger ledger = new BalanceLedger((afterId, action) -> {
+        long n = 0;
+        for (int i = 0; i < table.size(); i++) {
+            Transaction tx = table.get(i);
+            if (tx.getId() <= afterId) continue;
+            action.accept(tx);
+            n++;
+            duringScan.accept(i);
+        }
+        return n;
+    }, event -> { });
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void insertCommittedDuringRebuildIsCountedOnce() {
+        table.add(transaction(1, "alice", "bob", 1000));
+        table.add(transaction(2, "bob", "carol", 500));
+        ledger.rebuild();
+
+        Transaction late = transaction(3, "carol", "alice", 200);
+        duringScan = position -> {
+            if (position == 0) {
+                // commits ahead of the scan, so the scan reads it as well
+                table.add(late);
+                ledger.record(late);
+            }
+        };
+        rebuildWithHook();
+
+        assertConsistent();
+        assertEquals(Map.of("alice", 800L, "bob", -500L, "carol", -300L), balances());
+    }
+
+    @Test
+    void deleteCommittedDuringRebuildIsAppliedOnce() {
+        table.add(transaction(1, "alice", "bob", 1000));
+        table.add(transaction(2, "bob", "carol", 500));
+        table.add(transaction(3, "carol", "alice", 200));
+        ledger.rebuild();
+
+        duringScan = position -> {
+            if (position == 0) {
+                // deleted before the scan reaches it
+                Transaction gone = table.remove(2);
+                ledger.revert(gone);
+            } else if (position == 1) {
+                // deleted after the scan read it
+                Transaction gone = table.remove(0);
+                ledger.revert(gone);
+            }
+        };
+        rebuildWithHook();
+
+        assertConsistent();
+        assertEquals(Map.of("bob", 500L, "carol", -500L), balances());
+    }
+
+    @Test
+    void commitAppliedAfterTheRebuildReadItIsSkipped() {
+        table.add(transaction(1, "alice", "bob", 1000));
+        ledger.rebuild();
+
+        TransactionSynchronizationManager.initSynchronization();
+        Transaction tx = transaction(2, "bob", "carol", 500);
+        ledger.record(tx);
+        // the row commits, a rebuild reads it, and only then is the commit applied
+        table.add(tx);
+        ledger.rebuild();
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertConsistent();
+        assertEquals(Map.of("alice", 1000L, "bob", -500L, "carol", -500L), balances());
+
+        // later changes apply normally
+        Transaction next = transaction(3, "carol", "alice", 100);
+        table.add(next);
+        ledger.record(next);
+        assertConsistent();
+    }
+
+    @Test
+    void commitTheRebuildDidNotSeeIsApplied() {
+        table.add(transaction(1, "alice", "bob", 1000));
+        ledger.rebuild();
+
+        TransactionSynchronizationManager.initSynchronization();
+        Transaction tx = transaction(2, "bob", "carol", 500);
+        ledger.record(tx);
+        ledger.rebuild();
+        table.add(tx);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertConsistent();
+        assertEquals(Map.of("alice", 1000L, "bob", -500L, "carol", -500L), balances());
+    }
+
+    @Test
+    void rolledBackWriteLeavesNoTrace() {
+        table.add(transaction(1, "alice", "bob", 1000));
+        ledger.rebuild();
+
+        TransactionSynchronizationManager.initSynchronization();
+        ledger.record(transaction(2, "bob", "carol", 500));
+        ledger.rebuild();
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertConsistent();
+        assertEquals(Map.of("alice", 1000L, "bob", -1000L), balances());
+    }
+
+    @Test
+    void rebuildOrdersUsersByTheirLowestLiveTransaction() {
+        table.add(transaction(1, "alice", "bob", 1000));
+        table.add(transaction(2, "carol", "alice", 300));
+        ledger.rebuild();
+
+        Transaction first = table.remove(0);
+        ledger.revert(first);
+        // between builds alice keeps the place her deleted row gave her
+        assertEquals(List.of("alice", "carol"), names());
+
+        ledger.rebuild();
+        assertEquals(List.of("carol", "alice"), names());
+    }
+
+    @Test
+    void verifyReportsRowsTheLedgerMissed() {
+        table.add(transaction(1, "alice", "bob", 1000));
+        ledger.rebuild();
+        table.add(transaction(2, "bob", "carol", 500));
+
+        Map<String, Object> report = ledger.verify();
+        assertFalse((Boolean) report.get("consistent"));
+        assertEquals(List.of("bob", "carol"), report.get("globalMismatches"));
+        assertEquals(List.of("bob:bob", "bob:carol"), report.get("ownerMismatches"));
+        assertEquals(List.of("bob|carol"), report.get("pairMismatches"));
+    }
+
+    private void rebuildWithHook() {
+        try {
+            ledger.rebuild();
+        } finally {
+            duringScan = position -> { };
+        }
+    }
+
+    private void complete(int status) {
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        }
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+    }
+
+    private void assertConsistent() {
+        Map<String, Object> report = ledger.verify();
+        assertTrue((Boolean) report.get("consistent"), report::toString);
+        assertEquals((long) table.size(), report.get("transactions"));
+    }
+
+    private Map<String, Long> balances() {
+        Map<String, Long> out = new TreeMap<>();
+        for (Balance b : ledger.balances()) out.put(b.getUsername(), Money.toCents(b.getBalance()));
+        return out;
+    }
+
+    private List<String> names() {
+        return ledger.balances().stream().map(Balance::getUsername).toList();
+    }
+
+    private static Transaction transaction(long id, String payer, String payee, long cents) {
+        Transaction tx = new Transaction();
+        tx.setId(id);
+        tx.setPayerUsername(payer);
+        tx.setPayeeUsername(payee);
+        tx.setAmount(BigDecimal.valueOf(cents, 2));
+        tx.setCreatedBy(payer);
+        return tx;
+    }
+}
@@ -0,0 +1,128 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.Balance;
+import com.smartsplitpro.model.Settlement;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The cents engine must produce exactly the transfers, in the same order, of
+ * the original {@code BigDecimal} matcher. Balance sets are random but
+ * seeded, zero-sum, and full of ties so that the sort order matters.
+ */
+class CentsSettlementEngineTest {
+    private static final int ROUNDS = 2_000;
+
+    private final CentsSettlementEngine engine = new CentsSettlementEngine();
+
+    @Test
+    void matchesBigDecimalMatcherOnRandomBalances() {
+        for (long seed : new long[] {42, 7, 20240601}) {
+            Random random = new Random(seed);
+            for (int round = 0; round < ROUNDS; round++) {
+                long[] cents = randomZeroSum(random, 2 + random.nextInt(60));
+                List<Settlement> expected = new ReferenceMatcher().match(balances(cents));
+                List<Settlement> actual = engine.settle(balances(cents));
+                assertSamePlan(expected, actual, "seed " + seed + ", round " + round);
+            }
+        }
+    }
+
+    @Test
+    void settlesNothingWhenAllBalancesAreZero() {
+        assertEquals(0, engine.settle(balances(new long[] {0, 0, 0})).size());
+    }
+
+    private static long[] randomZeroSum(Random random, int users) {
+        long[] cents = new long[users];
+        long sum = 0;
+        for (int u = 0; u < users - 1; u++) {
+            // small ranges produce many equal balances
+            long c = random.nextBoolean() ? (random.nextInt(21) - 10) * 500L : random.nextInt(2_000_001) - 1_000_000;
+            cents[u] = c;
+            sum += c;
+        }
+        cents[users - 1] = -sum;
+        return cents;
+    }
+
+    private static List<Balance> balances(long[] cents) {
+        List<Balance> out = new ArrayList<>(cents.length);
+        for (int u = 0; u < cents.length; u++) {
+            out.add(new Balance("user" + u, Money.fromCents(cents[u])));
+        }
+        return out;
+    }
+
+    private static void assertSamePlan(List<Settlement> expected, List<Settlement> actual, String where) {
+        assertEquals(expected.size(), actual.size(), where + ": transfer count");
+        for (int i = 0; i < expected.size(); i++) {
+            Settlement x = expected.get(i);
+            Settlement y = actual.get(i);
+            assertEquals(x.getFrom(), y.getFrom(), where + ": transfer " + i + " from");
+            assertEquals(x.getTo(), y.getTo(), where + ": transfer " + i + " to");
+            assertEquals(x.getAmount(), y.getAmount(), where + ": transfer " + i + " amount");
+        }
+    }
+
+    /**
+     * The original matcher: quick sort creditors descending and debtors
+     * ascending (last element as pivot), then repeatedly settle the largest
+     * creditor against the largest debtor. Mutates the given balances.
+     */
+    private static final class ReferenceMatcher {
+
+        List<Settlement> match(List<Balance> balances) {
+            List<Balance> positives = new ArrayList<>();
+            List<Balance> negatives = new ArrayList<>();
+            for (Balance b : balances) {
+                if (b.getBalance().compareTo(BigDecimal.ZERO) > 0) positives.add(b);
+                else if (b.getBalance().compareTo(BigDecimal.ZERO) < 0) negatives.add(b);
+            }
+            quickSort(positives, 0, positives.size() - 1, true);
+            quickSort(negatives, 0, negatives.size() - 1, false);
+
+            List<Settlement> edges = new ArrayList<>();
+            int i = 0, j = 0;
+            while (i < positives.size() && j < negatives.size()) {
+                Balance pos = positives.get(i);
+                Balance neg = negatives.get(j);
+                BigDecimal owe = pos.getBalance().min(neg.getBalance().abs());
+                edges.add(new Settlement(neg.getUsername(), pos.getUsername(), owe));
+                pos.setBalance(pos.getBalance().subtract(owe));
+                neg.setBalance(neg.getBalance().add(owe));
+                if (pos.getBalance().compareTo(BigDecimal.ZERO) == 0) i++;
+                if (neg.getBalance().compareTo(BigDecimal.ZERO) == 0) j++;
+            }
+            return edges;
+        }
+
+        private void quickSort(List<Balance> list, int low, int high, boolean descending) {
+            if (low >= high) return;
+            BigDecimal pivot = list.get(high).getBalance();
+            int i = low - 1;
+            for (int j = low; j < high; j++) {
+                int cmp = list.get(j).getBalance().compareTo(pivot);
+                if (descending ? cmp > 0 : cmp < 0) {
+                    i++;
+                    swap(list, i, j);
+                }
+            }
+            swap(list, i + 1, high);
+            quickSort(list, low, i, descending);
+            quickSort(list, i + 2, high, descending);
+        }
+
+        private static void swap(List<Balance> list, int a, int b) {
+            Balance t = list.get(a);
+            list.set(a, list.get(b));
+            list.set(b, t);
+        }
+    }
+}
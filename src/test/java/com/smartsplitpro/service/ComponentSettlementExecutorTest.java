@@ -0,0 +1,93 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.Settlement;
+import com.smartsplitpro.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Components must be settled where {@code settlement.parallelism} says:
+ * on the calling thread when it is 1, on the executor's own pool otherwise,
+ * and never on the common pool.
+ */
+class ComponentSettlementExecutorTest {
+    // pairs of users trading once, well above the sequential threshold
+    private static final int PAIRS = 600;
+
+    @Test
+    void parallelismOneSettlesOnTheCallingThread() {
+        ComponentSettlementExecutor executor = new ComponentSettlementExecutor(1);
+        try {
+            Set<Thread> threads = ConcurrentHashMap.newKeySet();
+            List<Settlement> plan = executor.settle(snapshot(), (names, cents, count, deadline) -> {
+                assertNull(ForkJoinTask.getPool(), "settled inside a fork/join pool");
+                threads.add(Thread.currentThread());
+                return greedy(names, cents, count);
+            }, Long.MAX_VALUE);
+
+            assertEquals(Set.of(Thread.currentThread()), threads);
+            assertEquals(PAIRS, plan.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void parallelSettlementStaysOnTheExecutorPool() {
+        ComponentSettlementExecutor executor = new ComponentSettlementExecutor(2);
+        try {
+            Set<ForkJoinPool> pools = ConcurrentHashMap.newKeySet();
+            List<Settlement> plan = executor.settle(snapshot(), (names, cents, count, deadline) -> {
+                ForkJoinPool pool = ForkJoinTask.getPool();
+                assertNotNull(pool, "settled outside the executor pool");
+                pools.add(pool);
+                return greedy(names, cents, count);
+            }, Long.MAX_VALUE);
+
+            assertEquals(1, pools.size());
+            ForkJoinPool used = pools.iterator().next();
+            assertNotSame(ForkJoinPool.commonPool(), used);
+            assertEquals(2, used.getParallelism());
+            assertEquals(PAIRS, plan.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static List<Settlement> greedy(String[] names, long[] cents, int count) {
+        List<Settlement> out = new CentsSettlementEngine().settle(names, cents, count);
+        assertTrue(out.size() <= 1);
+        return out;
+    }
+
+    private static BalanceLedger.Snapshot snapshot() {
+        List<Transaction> rows = new ArrayList<>();
+        for (int i = 0; i < PAIRS; i++) {
+            Transaction tx = new Transaction();
+            tx.setId((long) i + 1);
+            tx.setPayerUsername("payer" + i);
+            tx.setPayeeUsername("payee" + i);
+            tx.setAmount(BigDecimal.valueOf(100 + i, 2));
+            tx.setCreatedBy("payer" + i);
+            rows.add(tx);
+        }
+        BalanceLedger ledger = new BalanceLedger((afterId, action) -> {
+            rows.forEach(action);
+            return rows.size();
+        }, event -> { });
+        return ledger.snapshot();
+    }
+}
@@ -0,0 +1,180 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.Balance;
+import com.smartsplitpro.model.Transaction;
+import com.smartsplitpro.repository.LedgerCheckpointRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A restart (the startup path run again) must leave the ledger exactly as a
+ * full rebuild would, whether it restores a checkpoint and replays the tail
+ * or finds no valid checkpoint and rebuilds.
+ */
+@SpringBootTest(properties = {
+        "ledger.checkpoint.enabled=true",
+        "ledger.checkpoint.interval-ms=3600000"
+})
+@ActiveProfiles("test")
+class LedgerCheckpointsTest {
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private BalanceLedger balanceLedger;
+    @Autowired
+    private LedgerCheckpoints ledgerCheckpoints;
+    @Autowired
+    private LedgerCheckpointRepository checkpointRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void restoreReplaysOnlyTheTail() {
+        add("ana", "ben", 1200);
+        add("ben", "cy", 300);
+        long checkpointId = checkpoint();
+        add("cy", "ana", 450);
+        add("dee", "ana", 99);
+        Map<String, Long> before = balances();
+
+        Map<String, Object> startup = restart();
+        assertEquals("checkpoint", startup.get("mode"));
+        assertEquals(checkpointId, startup.get("checkpointId"));
+        assertEquals(2L, startup.get("replayed"));
+        assertConsistent();
+        assertEquals(before, balances());
+    }
+
+    @Test
+    void deletingACoveredRowInvalidatesTheCheckpoint() {
+        add("eve", "fay", 500);
+        Transaction covered = add("fay", "gus", 700);
+        add("gus", "eve", 50);
+        long checkpointId = checkpoint();
+
+        transactionService.deleteTransaction(covered.getId());
+        assertFalse(checkpointRepository.findById(checkpointId).orElseThrow().isValid());
+        Map<String, Long> before = balances();
+
+        restart();
+        assertConsistent();
+        assertEquals(before, balances());
+
+        // a checkpoint written after the delete is used again
+        long next = checkpoint();
+        Map<String, Object> startup = restart();
+        assertEquals(next, startup.get("checkpointId"));
+        assertEquals(0L, startup.get("replayed"));
+        assertConsistent();
+        assertEquals(before, balances());
+    }
+
+    @Test
+    void rowCommittedAfterACheckpointThatSkippedItsIdIsNotLost() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        CountDownLatch allocated = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            // takes its id now, but commits only after a higher id was committed and checkpointed
+            Future<Transaction> slow = writer.submit(() -> tx.execute(status -> {
+                Transaction t = add("hal", "ivy", 800);
+                allocated.countDown();
+                await(release);
+                return t;
+            }));
+            assertTrue(allocated.await(10, TimeUnit.SECONDS));
+            Transaction fast = add("ivy", "jo", 250);
+            long checkpointId = checkpoint();
+            assertTrue(checkpointRepository.findById(checkpointId).orElseThrow().getLastTransactionId() >= fast.getId());
+
+            release.countDown();
+            Transaction late = slow.get(10, TimeUnit.SECONDS);
+            assertTrue(late.getId() < fast.getId());
+            assertFalse(checkpointRepository.findById(checkpointId).orElseThrow().isValid());
+        } finally {
+            release.countDown();
+            writer.shutdownNow();
+        }
+        Map<String, Long> before = balances();
+
+        restart();
+        assertConsistent();
+        assertEquals(before, balances());
+    }
+
+    @Test
+    void restartWithoutAValidCheckpointRebuilds() {
+        add("kim", "lou", 640);
+        checkpoint();
+        ledgerCheckpoints.invalidateAll();
+        add("lou", "kim", 40);
+        Map<String, Long> before = balances();
+
+        Map<String, Object> startup = restart();
+        assertEquals("rebuild", startup.get("mode"));
+        assertEquals("no checkpoint", startup.get("reason"));
+        assertConsistent();
+        assertEquals(before, balances());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> restart() {
+        ledgerCheckpoints.onApplicationReady();
+        return (Map<String, Object>) ledgerCheckpoints.stats().get("startup");
+    }
+
+    private long checkpoint() {
+        Map<String, Object> out = ledgerCheckpoints.checkpoint("test", true);
+        assertEquals("ok", out.get("status"), out::toString);
+        return (Long) out.get("id");
+    }
+
+    private void assertConsistent() {
+        Map<String, Object> report = balanceLedger.verify();
+        assertTrue((Boolean) report.get("consistent"), report::toString);
+    }
+
+    private Map<String, Long> balances() {
+        Map<String, Long> out = new TreeMap<>();
+        for (Balance b : balanceLedger.balances()) out.put(b.getUsername(), Money.toCents(b.getBalance()));
+        return out;
+    }
+
+    private Transaction add(String payer, String payee, long cents) {
+        Transaction tx = new Transaction();
+        tx.setDescription("checkpoint check");
+        tx.setPayerUsername(payer);
+        tx.setPayeeUsername(payee);
+        tx.setAmount(BigDecimal.valueOf(cents, 2));
+        tx.setCreatedBy(payer);
+        return transactionService.addTransaction(tx);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
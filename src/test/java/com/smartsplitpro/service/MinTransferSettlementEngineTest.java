@@ -0,0 +1,130 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.Settlement;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Optimality of the exact engine: on instances small enough to brute-force,
+ * both the bitmask DP and the branch-and-bound search must reach the minimum
+ * number of transfers, and every plan must settle all balances exactly.
+ */
+class MinTransferSettlementEngineTest {
+    private static final int ROUNDS = 1_500;
+
+    // DP for everything up to 18 users; search only (the DP never applies above one user)
+    private final MinTransferSettlementEngine dp = new MinTransferSettlementEngine(18, 200, 2000);
+    private final MinTransferSettlementEngine search = new MinTransferSettlementEngine(1, 200, 2000);
+    private final CentsSettlementEngine greedy = new CentsSettlementEngine();
+
+    @Test
+    void dpAndSearchReachTheBruteForceMinimum() {
+        Random random = new Random(42);
+        int improvedOnGreedy = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long[] cents = randomZeroSum(random, 2 + random.nextInt(9));
+            String[] names = names(cents.length);
+            int optimum = bruteForceMinimum(cents);
+            String where = "round " + round;
+
+            List<Settlement> dpPlan = dp.settle(names, cents, cents.length, Long.MAX_VALUE);
+            List<Settlement> searchPlan = search.settle(names, cents, cents.length, Long.MAX_VALUE);
+            List<Settlement> greedyPlan = greedy.settle(names, cents, cents.length);
+            assertEquals(optimum, dpPlan.size(), where + ": dp");
+            assertEquals(optimum, searchPlan.size(), where + ": search");
+            assertTrue(optimum <= greedyPlan.size(), where + ": greedy below the minimum");
+            assertSettlesExactly(names, cents, dpPlan, where + ": dp");
+            assertSettlesExactly(names, cents, searchPlan, where + ": search");
+            if (optimum < greedyPlan.size()) improvedOnGreedy++;
+        }
+        // the instances are only interesting if greedy is sometimes beaten
+        assertTrue(improvedOnGreedy > 0);
+    }
+
+    @Test
+    void expiredDeadlineStillReturnsAValidPlan() {
+        Random random = new Random(7);
+        long[] cents = randomZeroSum(random, 40);
+        String[] names = names(cents.length);
+        List<Settlement> plan = search.settle(names, cents, cents.length, System.nanoTime());
+        assertSettlesExactly(names, cents, plan, "expired deadline");
+        assertTrue(plan.size() <= greedy.settle(names, cents, cents.length).size());
+    }
+
+    @Test
+    void budgetsAreClampedToTheConfiguredMaximum() {
+        MinTransferSettlementEngine engine = new MinTransferSettlementEngine(18, 200, 50);
+        assertEquals(50, engine.getDefaultBudgetMs());
+        assertEquals(50, engine.effectiveBudgetMs(null));
+        assertEquals(50, engine.effectiveBudgetMs(Long.MAX_VALUE));
+        assertEquals(0, engine.effectiveBudgetMs(-5L));
+        assertEquals(10, engine.effectiveBudgetMs(10L));
+        // no overflow even for the largest request
+        assertTrue(engine.deadline(Long.MAX_VALUE) - System.nanoTime() <= 50_000_000L);
+    }
+
+    private static long[] randomZeroSum(Random random, int users) {
+        long[] cents = new long[users];
+        long sum = 0;
+        for (int u = 0; u < users - 1; u++) {
+            // small ranges make zero-sum subsets likely
+            long c = (random.nextInt(21) - 10) * 100L;
+            cents[u] = c;
+            sum += c;
+        }
+        cents[users - 1] = -sum;
+        return cents;
+    }
+
+    private static String[] names(int n) {
+        String[] names = new String[n];
+        for (int i = 0; i < n; i++) names[i] = "user" + i;
+        return names;
+    }
+
+    /**
+     * Non-zero balances minus the largest number of disjoint zero-sum groups,
+     * found by trying every zero-sum subset that holds the lowest open user.
+     */
+    private static int bruteForceMinimum(long[] cents) {
+        long[] open = java.util.Arrays.stream(cents).filter(c -> c != 0).toArray();
+        return open.length - maxGroups(open, (1 << open.length) - 1, new HashMap<>());
+    }
+
+    private static int maxGroups(long[] cents, int mask, Map<Integer, Integer> memo) {
+        if (mask == 0) return 0;
+        Integer known = memo.get(mask);
+        if (known != null) return known;
+        int low = mask & -mask;
+        int best = 0;
+        for (int sub = mask; sub != 0; sub = (sub - 1) & mask) {
+            if ((sub & low) == 0) continue;
+            long sum = 0;
+            for (int i = 0; i < cents.length; i++) if ((sub & (1 << i)) != 0) sum += cents[i];
+            if (sum == 0) best = Math.max(best, 1 + maxGroups(cents, mask ^ sub, memo));
+        }
+        memo.put(mask, best);
+        return best;
+    }
+
+    private static void assertSettlesExactly(String[] names, long[] cents, List<Settlement> plan, String where) {
+        Map<String, Long> left = new HashMap<>();
+        for (int i = 0; i < names.length; i++) left.merge(names[i], cents[i], Long::sum);
+        for (Settlement s : plan) {
+            long c = Money.toCents(s.getAmount());
+            assertTrue(c > 0, where + ": non-positive transfer");
+            left.merge(s.getFrom(), c, Long::sum);
+            left.merge(s.getTo(), -c, Long::sum);
+        }
+        for (Map.Entry<String, Long> e : left.entrySet()) {
+            assertEquals(0L, e.getValue(), where + ": " + e.getKey() + " left unsettled");
+        }
+    }
+}
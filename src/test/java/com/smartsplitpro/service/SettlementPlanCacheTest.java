@@ -0,0 +1,108 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.Settlement;
+import com.smartsplitpro.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SettlementPlanCacheTest {
+    private final ExecutorService threads = Executors.newFixedThreadPool(2);
+    private final ComponentSettlementExecutor componentExecutor = new ComponentSettlementExecutor(1);
+
+    @AfterEach
+    void tearDown() {
+        threads.shutdownNow();
+        componentExecutor.shutdown();
+    }
+
+    @Test
+    void concurrentMissesShareOneComputation() throws Exception {
+        SettlementPlanCache cache = new SettlementPlanCache(ledger());
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger computed = new AtomicInteger();
+
+        Future<List<Settlement>> first = threads.submit(() -> cache.get(SettlementEngineType.GREEDY, snapshot -> {
+            computed.incrementAndGet();
+            entered.countDown();
+            await(release);
+            return List.of(new Settlement("b", "a", BigDecimal.ONE));
+        }));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        Future<List<Settlement>> second = threads.submit(() -> cache.get(SettlementEngineType.GREEDY, snapshot -> {
+            computed.incrementAndGet();
+            return List.of();
+        }));
+        long waitUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (((Number) cache.stats().get("shared")).longValue() == 0 && System.nanoTime() < waitUntil) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, computed.get());
+        assertEquals(1L, cache.stats().get("shared"));
+    }
+
+    @Test
+    void nonDefaultExactBudgetIsNotCached() {
+        SettlementPlanCache cache = new SettlementPlanCache(ledger());
+        SettlementPlanner planner = new SettlementPlanner(cache, new MinTransferSettlementEngine(18, 200, 2000),
+                componentExecutor, "greedy", true);
+
+        planner.plan(SettlementEngineType.EXACT, 0L);
+        assertTrue(Double.isNaN(cache.transfers(SettlementEngineType.EXACT)));
+
+        // the configured default budget, explicit or implied, shares the cached plan
+        List<Settlement> implied = planner.plan(SettlementEngineType.EXACT, null);
+        assertFalse(Double.isNaN(cache.transfers(SettlementEngineType.EXACT)));
+        assertSame(implied, planner.plan(SettlementEngineType.EXACT, 200L));
+    }
+
+    private static BalanceLedger ledger() {
+        List<Transaction> rows = new ArrayList<>();
+        String[][] pairs = {{"a", "b"}, {"b", "c"}, {"c", "d"}, {"x", "y"}};
+        for (int i = 0; i < pairs.length; i++) {
+            Transaction tx = new Transaction();
+            tx.setId((long) i + 1);
+            tx.setPayerUsername(pairs[i][0]);
+            tx.setPayeeUsername(pairs[i][1]);
+            tx.setAmount(BigDecimal.valueOf(1000 + 250L * i, 2));
+            tx.setCreatedBy(pairs[i][0]);
+            rows.add(tx);
+        }
+        return new BalanceLedger((afterId, action) -> {
+            long n = 0;
+            for (Transaction tx : rows) {
+                if (tx.getId() > afterId) {
+                    action.accept(tx);
+                    n++;
+                }
+            }
+            return n;
+        }, event -> { });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.smartsplitpro.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartsplitpro.model.Transaction;
+import com.smartsplitpro.model.TransactionPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The plain, paginated and streamed listings of a user's transactions must
+ * return the same rows in the same order, also when rows share a timestamp
+ * (a bulk import stamps a whole chunk with one time).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionListingOrderTest {
+    private static final String USER = "rue";
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private TransactionExporter transactionExporter;
+
+    @Test
+    void equalTimestampsAreListedNewestIdFirstEverywhere() throws Exception {
+        LocalDateTime chunk = LocalDateTime.of(2024, 3, 1, 12, 0);
+        List<Long> expected = new ArrayList<>();
+        expected.add(add(chunk.plusDays(1)));
+        List<Long> sameTime = new ArrayList<>();
+        for (int i = 0; i < 5; i++) sameTime.add(add(chunk));
+        expected.addAll(sameTime.reversed());
+        expected.add(add(chunk.minusDays(1)));
+
+        assertEquals(expected, ids(transactionService.listByUser(USER)));
+
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionPage page = transactionService.pageByUser(USER, cursor, 2);
+            paged.addAll(ids(page.getItems()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(expected, paged);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transactionExporter.writeOwnedBy(USER, out);
+        List<Long> streamed = new ArrayList<>();
+        for (JsonNode row : new ObjectMapper().readTree(out.toByteArray())) streamed.add(row.get("id").asLong());
+        assertEquals(expected, streamed);
+    }
+
+    private long add(LocalDateTime timestamp) {
+        Transaction tx = new Transaction();
+        tx.setDescription("ordering check");
+        tx.setPayerUsername(USER);
+        tx.setPayeeUsername("sol");
+        tx.setAmount(BigDecimal.valueOf(500, 2));
+        tx.setCreatedBy(USER);
+        tx.setTimestamp(timestamp);
+        return transactionService.addTransaction(tx).getId();
+    }
+
+    private static List<Long> ids(List<Transaction> rows) {
+        return rows.stream().map(Transaction::getId).toList();
+    }
+}
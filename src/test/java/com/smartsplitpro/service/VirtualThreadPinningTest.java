@@ -0,0 +1,156 @@
+package com.smartsplitpro.service;
+
+import com.smartsplitpro.model.Transaction;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs the write, read and background paths concurrently on virtual threads
+ * under a JFR recording of {@code jdk.VirtualThreadPinned} and expects no
+ * events. The connection pool is kept smaller than the number of writers,
+ * so the ledger rebuild and the audit flush park waiting for a connection
+ * while holding their locks, and readers park waiting for the rebuild;
+ * any of them going back to {@code synchronized} pins a carrier thread
+ * there and fails this test.
+ */
+@SpringBootTest(properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "audit.batch-size=10",
+        "audit.flush-interval-ms=20",
+        "ledger.checkpoint.enabled=false"
+})
+@ActiveProfiles("test")
+class VirtualThreadPinningTest {
+    private static final int WRITERS = 200;
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private BalanceLedger balanceLedger;
+    @Autowired
+    private AuditHistoryWriter auditHistoryWriter;
+    @Autowired
+    private LiveUpdates liveUpdates;
+
+    @Test
+    void requestLedgerAuditAndSsePathsDoNotPin() throws Exception {
+        List<RecordedEvent> pinned = recordPinning(() -> {
+            List<SseEmitter> streams = new ArrayList<>();
+            for (int u = 0; u < 8; u++) streams.add(liveUpdates.open("pin" + u));
+            // not try-with-resources: close() would wait forever if pinning starves the pool
+            ExecutorService virtual = Executors.newVirtualThreadPerTaskExecutor();
+            try {
+                List<Future<?>> work = new ArrayList<>();
+                for (int i = 0; i < WRITERS; i++) {
+                    int n = i;
+                    work.add(virtual.submit(() -> {
+                        transactionService.addTransaction(transaction("pin" + n % 8, "pin" + (n + 3) % 8, 100 + n));
+                        transactionService.computeBalances();
+                        transactionService.computeBalancesForUser("pin" + n % 8);
+                        transactionService.computeSettlements();
+                    }));
+                    if (n % 10 == 0) {
+                        // contend for the ledger and audit locks while they are held across database reads and writes
+                        work.add(virtual.submit(balanceLedger::rebuild));
+                        work.add(virtual.submit(auditHistoryWriter::flush));
+                        work.add(virtual.submit(() -> liveUpdates.open("pin" + n % 8)));
+                    }
+                }
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+                for (Future<?> f : work) {
+                    try {
+                        f.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    } catch (TimeoutException e) {
+                        fail("the workload stalled; pinned carriers can starve the connection pool");
+                    }
+                }
+            } finally {
+                virtual.shutdownNow();
+            }
+            auditHistoryWriter.flush();
+            streams.forEach(SseEmitter::complete);
+        });
+        assertEquals(List.of(), describe(pinned));
+    }
+
+    @Test
+    void recordingSeesAMonitorHeldWhileParking() throws Exception {
+        Object monitor = new Object();
+        List<RecordedEvent> pinned = recordPinning(() -> {
+            Thread t = Thread.ofVirtual().start(() -> {
+                synchronized (monitor) {
+                    LockSupport.parkNanos(Duration.ofMillis(50).toNanos());
+                }
+            });
+            t.join();
+        });
+        assertFalse(pinned.isEmpty(), "the pinning check would not notice a regression");
+    }
+
+    private static List<RecordedEvent> recordPinning(ThrowingRunnable work) throws Exception {
+        Path file = Files.createTempFile("pinning", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+            work.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static List<String> describe(List<RecordedEvent> events) {
+        List<String> out = new ArrayList<>();
+        for (RecordedEvent e : events) {
+            String stack = e.getStackTrace() == null ? "(no stack)" : e.getStackTrace().getFrames().stream()
+                    .limit(12)
+                    .map(RecordedFrame::getMethod)
+                    .map(m -> m.getType().getName() + "." + m.getName())
+                    .collect(Collectors.joining(" <- "));
+            out.add(stack);
+        }
+        return out;
+    }
+
+    private static Transaction transaction(String payer, String payee, long cents) {
+        Transaction tx = new Transaction();
+        tx.setDescription("pinning check");
+        tx.setPayerUsername(payer);
+        tx.setPayeeUsername(payee);
+        tx.setAmount(BigDecimal.valueOf(cents, 2));
+        return tx;
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}